@@ -0,0 +1,163 @@
+package com.cjpowered.learn.inventory.bench;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.cjpowered.learn.inventory.AnyDay;
+import com.cjpowered.learn.inventory.FirstOfTheMonth;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Schedule;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockSnapshot;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Synthetic catalog with an in-memory database and marketing service, so
+ * benchmarks measure the rules and the manager rather than I/O.
+ */
+public final class BenchmarkCatalog {
+
+    /**
+     * season the marketing service reports for every date
+     */
+    public static final Season SEASON = Season.Summer;
+
+    public final List<Item> items;
+    public final InventoryDatabase database;
+    public final MarketingInfo marketing;
+
+    /**
+     * @param size
+     *            number of items
+     * @param warehouseSpread
+     *            number of warehouses stocking each item
+     * @param saleRatio
+     *            share of items on sale
+     * @param seasonalRatio
+     *            share of seasonal items; a quarter of them are in season
+     * @param bunchSize
+     *            units per package of every item
+     */
+    public BenchmarkCatalog(final int size, final int warehouseSpread, final double saleRatio,
+            final double seasonalRatio, final int bunchSize) {
+        final Random random = new Random(size);
+        final Warehouse[] warehouses = Warehouse.values();
+        final Season[] seasons = Season.values();
+        final Schedule anyDay = new AnyDay();
+        final Schedule firstOfTheMonth = new FirstOfTheMonth();
+        final int[] onHand = new int[size * warehouses.length];
+        final int[] onOrder = new int[onHand.length];
+        final Set<Item> onSale = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<Item> items = new ArrayList<>(size);
+
+        for (int row = 0; row < size; row++) {
+            final Map<Warehouse, Integer> wantOnHand = new EnumMap<>(Warehouse.class);
+            final int first = random.nextInt(warehouses.length);
+            for (int i = 0; i < warehouseSpread; i++) {
+                wantOnHand.put(warehouses[(first + i) % warehouses.length], 10 + random.nextInt(90));
+            }
+            final Schedule schedule = random.nextInt(10) == 0 ? firstOfTheMonth : anyDay;
+            final Item item = random.nextDouble() < seasonalRatio
+                    ? new SeasonalItem(wantOnHand, seasons[random.nextInt(seasons.length)], schedule, bunchSize)
+                    : new StockedItem(wantOnHand, schedule, bunchSize);
+            items.add(item);
+            if (random.nextDouble() < saleRatio)
+                onSale.add(item);
+            for (final Warehouse warehouse : warehouses) {
+                onHand[StockSnapshot.index(row, warehouse)] = random.nextInt(20) == 0 ? 0 : random.nextInt(120);
+                onOrder[StockSnapshot.index(row, warehouse)] = random.nextInt(4) == 0 ? random.nextInt(30) : 0;
+            }
+        }
+        this.items = Collections.unmodifiableList(items);
+        this.database = new ArrayDatabase(this.items, onHand, onOrder);
+        this.marketing = new MarketingInfo() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                return onSale.contains(item);
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                return SEASON;
+            }
+        };
+    }
+
+    /**
+     * Read-only stock counts in arrays; stock level changes are dropped.
+     */
+    private static final class ArrayDatabase implements InventoryDatabase {
+
+        private final List<Item> items;
+        private final Map<Item, Integer> rows = new IdentityHashMap<>();
+        private final int[] onHand;
+        private final int[] onOrder;
+
+        ArrayDatabase(final List<Item> items, final int[] onHand, final int[] onOrder) {
+            this.items = items;
+            for (int row = 0; row < items.size(); row++) {
+                rows.put(items.get(row), row);
+            }
+            this.onHand = onHand;
+            this.onOrder = onOrder;
+        }
+
+        @Override
+        public List<Item> stockItems() {
+            return items;
+        }
+
+        @Override
+        public int onHand(final Item item, final Warehouse warehouse) {
+            return onHand[StockSnapshot.index(rows.get(item), warehouse)];
+        }
+
+        @Override
+        public int onOrder(final Item item, final Warehouse warehouse) {
+            return onOrder[StockSnapshot.index(rows.get(item), warehouse)];
+        }
+
+        @Override
+        public StockSnapshot stockSnapshot(final List<Item> items) {
+            final int[] hand = new int[items.size() * Warehouse.values().length];
+            final int[] order = new int[hand.length];
+            for (int row = 0; row < items.size(); row++) {
+                final int from = StockSnapshot.index(rows.get(items.get(row)), Warehouse.values()[0]);
+                final int to = StockSnapshot.index(row, Warehouse.values()[0]);
+                System.arraycopy(onHand, from, hand, to, Warehouse.values().length);
+                System.arraycopy(onOrder, from, order, to, Warehouse.values().length);
+            }
+            return new StockSnapshot(items, hand, order);
+        }
+
+        @Override
+        public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+        }
+
+        @Override
+        public int onHand(final Item item) {
+            return onHand(item, Warehouse.Poughkeepsie);
+        }
+
+        @Override
+        public int onOrder(final Item item) {
+            return onOrder(item, Warehouse.Poughkeepsie);
+        }
+
+        @Override
+        public void setRequiredOnHand(final Item item, final int newAmount) {
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.cjpowered.learn.inventory.bench;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cjpowered.learn.inventory.AnyDay;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * One rule evaluation of a {@link StockedItem} or {@link SeasonalItem} with
+ * stock counts already fetched. Each call takes the next of a fixed set of
+ * random stock counts and sale flags so the branches are not predicted
+ * perfectly. The {@code Quantity} variants make the same decision through
+ * {@link Item#orderQuantity}, which creates no order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateOrderBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    @Param({ "0.1" })
+    public double saleRatio;
+
+    @Param({ "1", "6" })
+    public int bunchSize;
+
+    private final int[] onHand = new int[INPUTS];
+    private final int[] onOrder = new int[INPUTS];
+    private final boolean[] onSale = new boolean[INPUTS];
+    private Item stocked;
+    private Item seasonal;
+    private InventoryDatabase database;
+    private MarketingInfo marketing;
+    private LocalDate today;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(INPUTS);
+        for (int i = 0; i < INPUTS; i++) {
+            onHand[i] = random.nextInt(20) == 0 ? 0 : random.nextInt(120);
+            onOrder[i] = random.nextInt(4) == 0 ? random.nextInt(30) : 0;
+            onSale[i] = random.nextDouble() < saleRatio;
+        }
+        final Map<Warehouse, Integer> wantOnHand = new EnumMap<>(Warehouse.class);
+        wantOnHand.put(Warehouse.Ashford, 60);
+        stocked = new StockedItem(wantOnHand, new AnyDay(), bunchSize);
+        seasonal = new SeasonalItem(wantOnHand, BenchmarkCatalog.SEASON, new AnyDay(), bunchSize);
+        database = new BenchmarkCatalog(1, 1, 0, 0, 1).database;
+        marketing = new MarketingInfo() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                // the flag of the input the running call took
+                return onSale[next & (INPUTS - 1)];
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                return BenchmarkCatalog.SEASON;
+            }
+        };
+        today = LocalDate.of(2016, 3, 2);
+    }
+
+    @Benchmark
+    public Optional<Order> stockedItem() {
+        final int i = ++next & (INPUTS - 1);
+        return stocked.createOrder(today, onHand[i], onOrder[i], database, marketing, Warehouse.Ashford);
+    }
+
+    @Benchmark
+    public Optional<Order> seasonalItem() {
+        final int i = ++next & (INPUTS - 1);
+        return seasonal.createOrder(today, onHand[i], onOrder[i], database, marketing, Warehouse.Ashford);
+    }
+
+    @Benchmark
+    public int stockedItemQuantity() {
+        final int i = ++next & (INPUTS - 1);
+        return stocked.orderQuantity(today, onHand[i], onOrder[i], database, marketing, Warehouse.Ashford);
+    }
+
+    @Benchmark
+    public int seasonalItemQuantity() {
+        final int i = ++next & (INPUTS - 1);
+        return seasonal.orderQuantity(today, onHand[i], onOrder[i], database, marketing, Warehouse.Ashford);
+    }
+
+}
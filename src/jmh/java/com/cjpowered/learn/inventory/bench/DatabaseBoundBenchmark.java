@@ -0,0 +1,142 @@
+package com.cjpowered.learn.inventory.bench;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+
+/**
+ * A run of {@link AceInventoryManager} in its per-pair mode against a database
+ * whose every read waits {@code latencyMicros}, comparing a fixed pool of
+ * {@code maxDatabaseCalls} platform threads with a virtual thread per pair.
+ * The {@code virtual} mode needs Java 21 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseBoundBenchmark {
+
+    @Param({ "platform", "virtual" })
+    public String threads;
+
+    @Param({ "2000" })
+    public int catalogSize;
+
+    @Param({ "1000" })
+    public int latencyMicros;
+
+    @Param({ "64", "256" })
+    public int maxDatabaseCalls;
+
+    @Param({ "2016-03-02" })
+    public String today;
+
+    private ExecutorService pool;
+    private InventoryManager manager;
+    private LocalDate date;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final BenchmarkCatalog catalog = new BenchmarkCatalog(catalogSize, 1, 0.1, 0.3, 1);
+        final InventoryDatabase database = new SlowDatabase(catalog.database, TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+        if ("virtual".equals(threads)) {
+            manager = AceInventoryManager.withVirtualThreads(database, catalog.marketing, maxDatabaseCalls);
+        } else {
+            pool = Executors.newFixedThreadPool(maxDatabaseCalls);
+            manager = new AceInventoryManager(database, catalog.marketing, pool, maxDatabaseCalls);
+        }
+        date = LocalDate.parse(today);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null)
+            pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Order> getOrders() {
+        return manager.getOrders(date);
+    }
+
+    /**
+     * Delays each stock read; everything else passes straight through.
+     */
+    private static final class SlowDatabase implements InventoryDatabase {
+
+        private final InventoryDatabase database;
+        private final long latencyNanos;
+
+        SlowDatabase(final InventoryDatabase database, final long latencyNanos) {
+            this.database = database;
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public int onHand(final Item item, final Warehouse warehouse) {
+            LockSupport.parkNanos(latencyNanos);
+            return database.onHand(item, warehouse);
+        }
+
+        @Override
+        public int onOrder(final Item item, final Warehouse warehouse) {
+            LockSupport.parkNanos(latencyNanos);
+            return database.onOrder(item, warehouse);
+        }
+
+        @Override
+        public List<Item> stockItems() {
+            return database.stockItems();
+        }
+
+        @Override
+        public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+            database.setRequiredOnHand(item, warehouse, newAmount);
+        }
+
+        @Override
+        @Deprecated
+        public int onHand(final Item item) {
+            return database.onHand(item);
+        }
+
+        @Override
+        @Deprecated
+        public int onOrder(final Item item) {
+            return database.onOrder(item);
+        }
+
+        @Override
+        @Deprecated
+        public void setRequiredOnHand(final Item item, final int newAmount) {
+            database.setRequiredOnHand(item, newAmount);
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.cjpowered.learn.inventory.bench;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cjpowered.learn.inventory.DecisionLog;
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderBatch;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+
+/**
+ * A whole nightly run of {@link AceInventoryManager#getOrders(LocalDate)}, and
+ * of {@link AceInventoryManager#getOrderBatch(LocalDate)} for comparison.
+ * {@code getOrdersRecordingDecisions} runs the same manager with a
+ * {@link DecisionLog} tracing one decision in 1000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GetOrdersBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int catalogSize;
+
+    @Param({ "1", "4" })
+    public int warehouseSpread;
+
+    @Param({ "0.1" })
+    public double saleRatio;
+
+    @Param({ "0.3" })
+    public double seasonalRatio;
+
+    @Param({ "1", "6" })
+    public int bunchSize;
+
+    @Param({ "2016-03-02" })
+    public String today;
+
+    private InventoryManager manager;
+    private InventoryManager recording;
+    private LocalDate date;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final BenchmarkCatalog catalog = new BenchmarkCatalog(catalogSize, warehouseSpread, saleRatio, seasonalRatio, bunchSize);
+        manager = new AceInventoryManager(catalog.database, catalog.marketing);
+        recording = new AceInventoryManager(catalog.database, catalog.marketing).recordingDecisions(new DecisionLog(4096, 1000));
+        date = LocalDate.parse(today);
+    }
+
+    @Benchmark
+    public List<Order> getOrders() {
+        return manager.getOrders(date);
+    }
+
+    @Benchmark
+    public List<Order> getOrdersRecordingDecisions() {
+        return recording.getOrders(date);
+    }
+
+    @Benchmark
+    public OrderBatch getOrderBatch() {
+        return manager.getOrderBatch(date);
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.cjpowered.learn.inventory.bench;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.ace.HorizonPlanner;
+
+/**
+ * A {@code days}-long projection by {@link HorizonPlanner} against one
+ * {@link AceInventoryManager#getOrderBatch(LocalDate)} call per day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HorizonBenchmark {
+
+    @Param({ "100000" })
+    public int catalogSize;
+
+    @Param({ "90" })
+    public int days;
+
+    @Param({ "2016-03-02" })
+    public String from;
+
+    private HorizonPlanner planner;
+    private InventoryManager manager;
+    private LocalDate start;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final BenchmarkCatalog catalog = new BenchmarkCatalog(catalogSize, 2, 0.1, 0.3, 1);
+        planner = new HorizonPlanner(catalog.database, catalog.marketing, (item, warehouse, day) -> 3, 5);
+        manager = new AceInventoryManager(catalog.database, catalog.marketing);
+        start = LocalDate.parse(from);
+    }
+
+    @Benchmark
+    public long projection() {
+        return planner.plan(start, days).mapToLong(day -> day.orders.size()).sum();
+    }
+
+    @Benchmark
+    public long dailyRuns() {
+        long orders = 0;
+        for (int day = 0; day < days; day++) {
+            orders += manager.getOrderBatch(start.plusDays(day)).size();
+        }
+        return orders;
+    }
+
+}
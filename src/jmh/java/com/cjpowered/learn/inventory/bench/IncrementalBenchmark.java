@@ -0,0 +1,92 @@
+package com.cjpowered.learn.inventory.bench;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.OrderBatch;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.ace.IncrementalInventoryManager;
+import com.cjpowered.learn.inventory.ace.IncrementalInventoryManager.Change;
+
+/**
+ * A run of {@link IncrementalInventoryManager} after stock changes to
+ * {@code changedRatio} of the items, reported as {@link Change}s within the
+ * measured call, against a full {@link AceInventoryManager} run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IncrementalBenchmark {
+
+    @Param({ "100000" })
+    public int catalogSize;
+
+    @Param({ "0.01", "0.05" })
+    public double changedRatio;
+
+    @Param({ "2016-03-02" })
+    public String today;
+
+    private InventoryManager full;
+    private IncrementalInventoryManager incremental;
+    private List<List<Change>> changes;
+    private int next;
+    private LocalDate date;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final BenchmarkCatalog catalog = new BenchmarkCatalog(catalogSize, 2, 0.1, 0.3, 1);
+        full = new AceInventoryManager(catalog.database, catalog.marketing);
+        incremental = new IncrementalInventoryManager(catalog.database, catalog.marketing);
+        date = LocalDate.parse(today);
+        incremental.getOrderBatch(date);
+
+        final Random random = new Random(catalogSize);
+        changes = new ArrayList<>();
+        for (int run = 0; run < 64; run++) {
+            final List<Change> batch = new ArrayList<>();
+            for (int i = 0; i < catalogSize * changedRatio; i++) {
+                final Item item = catalog.items.get(random.nextInt(catalogSize));
+                for (final Warehouse warehouse : Warehouse.values()) {
+                    if (item.stocks(warehouse))
+                        batch.add(Change.stock(item, warehouse));
+                }
+            }
+            changes.add(batch);
+        }
+    }
+
+    @Benchmark
+    public OrderBatch fullRun() {
+        return full.getOrderBatch(date);
+    }
+
+    @Benchmark
+    public OrderBatch incrementalRun() {
+        incremental.changed(changes.get(next++ & 63));
+        return incremental.getOrderBatch(date);
+    }
+
+}
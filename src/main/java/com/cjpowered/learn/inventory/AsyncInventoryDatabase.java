@@ -0,0 +1,44 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking companion of {@link InventoryDatabase}: each call starts a
+ * request and returns at once, so a caller can keep several round trips in
+ * flight. The same item identity and instance contracts apply.
+ *
+ * {@link ExecutorAsyncInventoryDatabase} adapts any blocking implementation.
+ */
+public interface AsyncInventoryDatabase {
+
+    /**
+     * Fetch list of all stocked items.
+     *
+     * @see InventoryDatabase#stockItems()
+     */
+    CompletableFuture<List<Item>> stockItems();
+
+    /**
+     * Fetch number on-hand.
+     *
+     * @see InventoryDatabase#onHand(Item, Warehouse)
+     */
+    CompletableFuture<Integer> onHand(Item item, Warehouse warehouse);
+
+    /**
+     * Fetch the number on order.
+     *
+     * @see InventoryDatabase#onOrder(Item, Warehouse)
+     */
+    CompletableFuture<Integer> onOrder(Item item, Warehouse warehouse);
+
+    /**
+     * Change the required on-hand amounts of many items at once.
+     *
+     * @see InventoryDatabase#setRequiredOnHand(Collection)
+     */
+    CompletableFuture<Void> setRequiredOnHand(Collection<RequiredOnHand> changes);
+
+}
@@ -0,0 +1,232 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the {@link Outcome} of every decision an order run makes, by
+ * warehouse and {@link Kind} of item, and keeps a trace of a random sample
+ * of decisions.
+ *
+ * Counters are striped {@link LongAdder}s and the trace is a ring buffer
+ * allocated up front, so recording takes no lock and creates no objects and
+ * a log can be left on for every run. Only reading allocates. The trace
+ * keeps the most recent sampled decisions, overwriting the oldest. A writer
+ * claims its slot before filling it, and a sample whose slot is being
+ * written or already holds a later decision is dropped.
+ */
+public final class DecisionLog {
+
+    /**
+     * Item types counted apart.
+     */
+    public enum Kind {
+        STOCKED, SEASONAL, OTHER;
+
+        public static Kind of(final Item item) {
+            if (item instanceof SeasonalItem)
+                return SEASONAL;
+            return item instanceof StockedItem ? STOCKED : OTHER;
+        }
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final Warehouse[] WAREHOUSES = Warehouse.values();
+    private static final Kind[] KINDS = Kind.values();
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long WRITING = -1;
+
+    private final LongAdder[] counts = new LongAdder[OUTCOMES.length * WAREHOUSES.length * KINDS.length];
+
+    private final int sampleEvery;
+    private final int mask;
+    private final AtomicLong traced = new AtomicLong();
+
+    /**
+     * per slot: sequence number of the decision held, {@link #WRITING}
+     * while one writer fills it, {@link #EMPTY} before the first
+     */
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<Item> items;
+
+    /**
+     * per slot: on-hand in the high half, on-order in the low half
+     */
+    private final AtomicLongArray stock;
+
+    /**
+     * per slot: quantity in the high half, warehouse and outcome ordinals in
+     * the low half
+     */
+    private final AtomicLongArray decisions;
+
+    /**
+     * Counts outcomes without tracing.
+     */
+    public DecisionLog() {
+        this(0, 0);
+    }
+
+    /**
+     * @param traceCapacity
+     *            decisions kept in the trace, rounded up to a power of two;
+     *            0 for no trace
+     * @param sampleEvery
+     *            trace one decision in about this many, chosen at random; 1
+     *            traces all of them
+     */
+    public DecisionLog(final int traceCapacity, final int sampleEvery) {
+        if (traceCapacity < 0 || traceCapacity > 1 << 30)
+            throw new IllegalArgumentException("traceCapacity out of range: " + traceCapacity);
+        if (traceCapacity > 0 && sampleEvery < 1)
+            throw new IllegalArgumentException("sampleEvery must be positive: " + sampleEvery);
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        final int capacity = traceCapacity <= 1 ? traceCapacity : Integer.highestOneBit(traceCapacity - 1) << 1;
+        this.sampleEvery = capacity == 0 ? 0 : sampleEvery;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        this.items = new AtomicReferenceArray<>(capacity);
+        this.stock = new AtomicLongArray(capacity);
+        this.decisions = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            sequences.set(slot, EMPTY);
+        }
+    }
+
+    /**
+     * @param onHand
+     *            units on hand, -1 if the decision did not read them
+     * @param onOrder
+     *            units on order, -1 if the decision did not read them
+     * @param quantity
+     *            units ordered, 0 for no order
+     */
+    public void record(final Item item, final Warehouse warehouse, final Outcome outcome, final int onHand, final int onOrder,
+            final int quantity) {
+        counts[index(outcome, warehouse, Kind.of(item))].increment();
+        if (sampleEvery == 0 || sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0)
+            return;
+        final long sequence = traced.getAndIncrement();
+        final int slot = (int) sequence & mask;
+        final long previous = sequences.get(slot);
+        if (previous == WRITING || previous > sequence || !sequences.compareAndSet(slot, previous, WRITING))
+            return;
+        items.set(slot, item);
+        stock.set(slot, (long) onHand << 32 | onOrder & 0xffffffffL);
+        decisions.set(slot, (long) quantity << 32 | warehouse.ordinal() << 8 | outcome.ordinal());
+        sequences.set(slot, sequence);
+    }
+
+    public long count(final Outcome outcome, final Warehouse warehouse, final Kind kind) {
+        return counts[index(outcome, warehouse, kind)].sum();
+    }
+
+    /**
+     * @return decisions with each outcome, over all warehouses and kinds
+     */
+    public Map<Outcome, Long> counts() {
+        final Map<Outcome, Long> totals = new EnumMap<>(Outcome.class);
+        for (final Outcome outcome : OUTCOMES) {
+            long total = 0;
+            for (final Warehouse warehouse : WAREHOUSES) {
+                for (final Kind kind : KINDS) {
+                    total += count(outcome, warehouse, kind);
+                }
+            }
+            totals.put(outcome, total);
+        }
+        return totals;
+    }
+
+    /**
+     * @return traced decisions still in the buffer, oldest first. Decisions
+     *         overwritten while the trace is read are left out.
+     */
+    public List<Trace> trace() {
+        final List<Trace> trace = new ArrayList<>(sequences.length());
+        for (int slot = 0; slot < sequences.length(); slot++) {
+            final long sequence = sequences.get(slot);
+            final Item item = items.get(slot);
+            final long counts = stock.get(slot);
+            final long decision = decisions.get(slot);
+            if (sequence >= 0 && sequences.get(slot) == sequence) {
+                trace.add(new Trace(sequence, item, WAREHOUSES[(int) decision >>> 8 & 0xff], OUTCOMES[(int) decision & 0xff],
+                        (int) (counts >> 32), (int) counts, (int) (decision >> 32)));
+            }
+        }
+        trace.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+        return Collections.unmodifiableList(trace);
+    }
+
+    private static int index(final Outcome outcome, final Warehouse warehouse, final Kind kind) {
+        return (outcome.ordinal() * WAREHOUSES.length + warehouse.ordinal()) * KINDS.length + kind.ordinal();
+    }
+
+    /**
+     * One traced decision.
+     */
+    public static final class Trace {
+
+        /**
+         * position among all traced decisions of the log
+         */
+        public final long sequence;
+
+        public final Item item;
+
+        public final Warehouse warehouse;
+
+        public final Outcome outcome;
+
+        /**
+         * units on hand, -1 if not read
+         */
+        public final int onHand;
+
+        /**
+         * units on order, -1 if not read
+         */
+        public final int onOrder;
+
+        /**
+         * units ordered, 0 for no order
+         */
+        public final int quantity;
+
+        Trace(final long sequence, final Item item, final Warehouse warehouse, final Outcome outcome, final int onHand,
+                final int onOrder, final int quantity) {
+            this.sequence = sequence;
+            this.item = item;
+            this.warehouse = warehouse;
+            this.outcome = outcome;
+            this.onHand = onHand;
+            this.onOrder = onOrder;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public String toString() {
+            return "Trace{" +
+                    "sequence=" + sequence +
+                    ", item=" + item +
+                    ", warehouse=" + warehouse +
+                    ", outcome=" + outcome +
+                    ", onHand=" + onHand +
+                    ", onOrder=" + onOrder +
+                    ", quantity=" + quantity +
+                    '}';
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs each call of a blocking {@link InventoryDatabase} as a task on an
+ * {@link Executor}. The executor's threads call the database concurrently, so
+ * it must be thread-safe.
+ */
+public final class ExecutorAsyncInventoryDatabase implements AsyncInventoryDatabase {
+
+    private final InventoryDatabase database;
+    private final Executor executor;
+
+    public ExecutorAsyncInventoryDatabase(final InventoryDatabase database, final Executor executor) {
+        this.database = database;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<List<Item>> stockItems() {
+        return CompletableFuture.supplyAsync(database::stockItems, executor);
+    }
+
+    @Override
+    public CompletableFuture<Integer> onHand(final Item item, final Warehouse warehouse) {
+        return CompletableFuture.supplyAsync(() -> database.onHand(item, warehouse), executor);
+    }
+
+    @Override
+    public CompletableFuture<Integer> onOrder(final Item item, final Warehouse warehouse) {
+        return CompletableFuture.supplyAsync(() -> database.onOrder(item, warehouse), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> setRequiredOnHand(final Collection<RequiredOnHand> changes) {
+        final List<RequiredOnHand> copy = new ArrayList<>(changes);
+        return CompletableFuture.runAsync(() -> database.setRequiredOnHand(copy), executor);
+    }
+
+}
@@ -9,4 +9,17 @@ public class FirstOfTheMonth implements Schedule {
 		return  today.getDayOfMonth() == 1;
 	}
 
+	/**
+	 * Stateless, so every instance is the same schedule.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj != null && obj.getClass() == getClass();
+	}
+
+	@Override
+	public int hashCode() {
+		return getClass().hashCode();
+	}
+
 }
@@ -0,0 +1,128 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.cjpowered.learn.metrics.CallMetrics;
+
+/**
+ * Counts calls to another {@link InventoryDatabase} and records their
+ * latencies, per method. Calls that throw are recorded too.
+ */
+public final class InstrumentedInventoryDatabase implements InventoryDatabase {
+
+    public static final String ON_HAND = "onHand";
+    public static final String ON_ORDER = "onOrder";
+    public static final String STOCK_ITEMS = "stockItems";
+    public static final String STOCK_SNAPSHOT = "stockSnapshot";
+    public static final String SET_REQUIRED_ON_HAND = "setRequiredOnHand";
+    public static final String SET_REQUIRED_ON_HAND_BATCH = "setRequiredOnHandBatch";
+
+    private final InventoryDatabase database;
+    private final CallMetrics metrics = new CallMetrics();
+
+    public InstrumentedInventoryDatabase(final InventoryDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * @return latencies recorded so far, by method name
+     */
+    public CallMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    @Deprecated
+    public int onHand(final Item item) {
+        final long start = System.nanoTime();
+        try {
+            return database.onHand(item);
+        } finally {
+            metrics.record(ON_HAND, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Item> stockItems() {
+        final long start = System.nanoTime();
+        try {
+            return database.stockItems();
+        } finally {
+            metrics.record(STOCK_ITEMS, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    @Deprecated
+    public int onOrder(final Item item) {
+        final long start = System.nanoTime();
+        try {
+            return database.onOrder(item);
+        } finally {
+            metrics.record(ON_ORDER, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int onOrder(final Item item, final Warehouse warehouse) {
+        final long start = System.nanoTime();
+        try {
+            return database.onOrder(item, warehouse);
+        } finally {
+            metrics.record(ON_ORDER, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void setRequiredOnHand(final Item item, final int newAmount) {
+        final long start = System.nanoTime();
+        try {
+            database.setRequiredOnHand(item, newAmount);
+        } finally {
+            metrics.record(SET_REQUIRED_ON_HAND, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+        final long start = System.nanoTime();
+        try {
+            database.setRequiredOnHand(item, warehouse, newAmount);
+        } finally {
+            metrics.record(SET_REQUIRED_ON_HAND, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void setRequiredOnHand(final Collection<RequiredOnHand> changes) {
+        final long start = System.nanoTime();
+        try {
+            database.setRequiredOnHand(changes);
+        } finally {
+            metrics.record(SET_REQUIRED_ON_HAND_BATCH, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int onHand(final Item item, final Warehouse warehouse) {
+        final long start = System.nanoTime();
+        try {
+            return database.onHand(item, warehouse);
+        } finally {
+            metrics.record(ON_HAND, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public StockSnapshot stockSnapshot(final List<Item> items) {
+        final long start = System.nanoTime();
+        try {
+            return database.stockSnapshot(items);
+        } finally {
+            metrics.record(STOCK_SNAPSHOT, System.nanoTime() - start);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.cjpowered.learn.inventory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.cjpowered.learn.marketing.InstrumentedMarketingInfo;
+import com.cjpowered.learn.metrics.CallMetrics;
+import com.cjpowered.learn.metrics.LatencyHistogram;
+
+/**
+ * Reports a {@link RunSummary} after every order run of another
+ * {@link InventoryManager} that was built on the given instrumented
+ * collaborators.
+ *
+ * Summaries are the difference between the collaborators' metrics before
+ * and after a run, so calls from overlapping runs or other users of the same
+ * collaborators are counted in whichever run they fall. A streamed run ends
+ * when its stream is fully consumed or closed, and includes the consumer's
+ * own time.
+ */
+public final class InstrumentedInventoryManager implements InventoryManager {
+
+    private final InventoryManager manager;
+    private final InstrumentedInventoryDatabase database;
+    private final InstrumentedMarketingInfo marketingInfo;
+    private final Consumer<RunSummary> summaries;
+
+    public InstrumentedInventoryManager(final InventoryManager manager, final InstrumentedInventoryDatabase database,
+            final InstrumentedMarketingInfo marketingInfo, final Consumer<RunSummary> summaries) {
+        this.manager = manager;
+        this.database = database;
+        this.marketingInfo = marketingInfo;
+        this.summaries = summaries;
+    }
+
+    @Override
+    public List<Order> getOrders(final LocalDate today) {
+        final Run run = new Run();
+        try {
+            return manager.getOrders(today);
+        } finally {
+            run.end();
+        }
+    }
+
+    @Override
+    public OrderBatch getOrderBatch(final LocalDate today) {
+        final Run run = new Run();
+        try {
+            return manager.getOrderBatch(today);
+        } finally {
+            run.end();
+        }
+    }
+
+    @Override
+    public Stream<Order> streamOrders(final LocalDate today) {
+        final Run run = new Run();
+        return Streams.onExhaustion(manager.streamOrders(today), run::end);
+    }
+
+    private final class Run {
+
+        private final Map<String, LatencyHistogram.Snapshot> databaseBefore = database.metrics().snapshot();
+        private final Map<String, LatencyHistogram.Snapshot> marketingBefore = marketingInfo.metrics().snapshot();
+        private final long start = System.nanoTime();
+        private final AtomicBoolean ended = new AtomicBoolean();
+
+        void end() {
+            if (ended.compareAndSet(false, true)) {
+                summaries.accept(new RunSummary(Duration.ofNanos(System.nanoTime() - start),
+                        CallMetrics.since(database.metrics().snapshot(), databaseBefore),
+                        CallMetrics.since(marketingInfo.metrics().snapshot(), marketingBefore)));
+            }
+        }
+    }
+
+}
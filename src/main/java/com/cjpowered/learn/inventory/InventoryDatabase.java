@@ -1,5 +1,6 @@
 package com.cjpowered.learn.inventory;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -84,6 +85,22 @@ public interface InventoryDatabase {
      */
     void setRequiredOnHand(Item item, Warehouse warehouse, int newAmount);
 
+    /**
+     * Change the required on-hand amounts of many items at once.
+     * Implementations backed by a remote store should override this to write
+     * in as few round trips as they can; the default falls back to
+     * {@link #setRequiredOnHand(Item, Warehouse, int)} for each change, in
+     * order, and stops at the first failure.
+     *
+     * @param changes
+     *            changes to apply, at most one per item and warehouse
+     */
+    default void setRequiredOnHand(final Collection<RequiredOnHand> changes) {
+        for (final RequiredOnHand change : changes) {
+            setRequiredOnHand(change.item, change.warehouse, change.amount);
+        }
+    }
+
     /**
      * Fetch number on-hand.
      *
@@ -101,4 +118,65 @@ public interface InventoryDatabase {
      */
     int onHand(Item item, Warehouse warehouse);
 
+    /**
+     * Fetch on-hand and on-order counts for many items in every warehouse at
+     * once. Implementations backed by a remote store should override this to
+     * answer in as few round trips as they can; the default falls back to
+     * {@link #onHand(Item, Warehouse)} and {@link #onOrder(Item, Warehouse)}
+     * for each item and warehouse.
+     *
+     * Counts for a warehouse that does not stock an item, according to
+     * {@link Item#stocks(Warehouse)}, need not be fetched and may read as 0.
+     *
+     * @param items
+     *            items to query. The item instances must have been returned
+     *            by the same implementation on which this method is called.
+     *
+     * @return fetched values
+     */
+    default StockSnapshot stockSnapshot(final List<Item> items) {
+        final int[] onHand = new int[items.size() * Warehouse.values().length];
+        final int[] onOrder = new int[onHand.length];
+        for (int row = 0; row < items.size(); row++) {
+            final Item item = items.get(row);
+            for (final Warehouse warehouse : Warehouse.values()) {
+                if (!item.stocks(warehouse))
+                    continue;
+                onHand[StockSnapshot.index(row, warehouse)] = onHand(item, warehouse);
+                onOrder[StockSnapshot.index(row, warehouse)] = onOrder(item, warehouse);
+            }
+        }
+        return new StockSnapshot(items, onHand, onOrder);
+    }
+
+    /**
+     * Key of the catalog entry {@code item} stands for, the same for every
+     * instance this database returns for that entry, e.g. after it rebuilds
+     * an item whose stock level changed, and different for any other entry.
+     * Databases returning one instance per entry can keep the default, the
+     * item itself.
+     *
+     * @param item
+     *            item to name. The item instance must have been returned by
+     *            the same implementation on which this method is called.
+     *
+     * @return key compared with {@link Object#equals(Object)}
+     */
+    default Object rowKey(final Item item) {
+        return item;
+    }
+
+    /**
+     * A view that reads stock counts as they are now, unaffected by later
+     * writes, so a caller making many reads sees every item as of the same
+     * moment. Stock level changes made through the view go to this database.
+     * Implementations that cannot isolate reads return themselves, which is
+     * the default.
+     *
+     * @return view to read from
+     */
+    default InventoryDatabase snapshot() {
+        return this;
+    }
+
 }
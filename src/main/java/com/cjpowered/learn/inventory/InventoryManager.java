@@ -2,6 +2,8 @@ package com.cjpowered.learn.inventory;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface InventoryManager {
 
@@ -13,6 +15,36 @@ public interface InventoryManager {
      *
      * @return list of items and quantities to order
      */
-    List<Order> getOrders(LocalDate today);
+    default List<Order> getOrders(LocalDate today) {
+        return streamOrders(today).collect(Collectors.toList());
+    }
 
-}
\ No newline at end of file
+    /**
+     * Compute inventory orders lazily. Orders are emitted as they are
+     * decided, in the same order {@link #getOrders(LocalDate)} lists them, so
+     * callers can start on the first order before the last item is evaluated
+     * and never need to hold all of them at once.
+     *
+     * @param today
+     *            effective day
+     *
+     * @return items and quantities to order
+     */
+    Stream<Order> streamOrders(LocalDate today);
+
+    /**
+     * Compute inventory orders into primitive columns, in the same order
+     * {@link #getOrders(LocalDate)} lists them. Managers that can decide
+     * orders without creating {@link Order} instances should override this;
+     * the default converts the list.
+     *
+     * @param today
+     *            effective day
+     *
+     * @return items and quantities to order
+     */
+    default OrderBatch getOrderBatch(LocalDate today) {
+        return OrderBatch.of(getOrders(today));
+    }
+
+}
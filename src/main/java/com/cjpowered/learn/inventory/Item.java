@@ -15,6 +15,47 @@ public interface Item {
 	
 	boolean canOrder(LocalDate today);
 
+	/**
+	 * @return schedule deciding {@link #canOrder(LocalDate)}
+	 */
+	Schedule schedule();
+
+	/**
+	 * @return whether {@code warehouse} keeps a stock level of this item. If
+	 *         not, no order is ever created for it there.
+	 */
+	boolean stocks(Warehouse warehouse);
+
+	/**
+	 * Decide what to order given stock counts the caller has already fetched,
+	 * for example from a {@link StockSnapshot}.
+	 */
+	Optional<Order> createOrder(LocalDate when, int onHand, int onOrder, InventoryDatabase database, MarketingInfo marketingInfo, Warehouse warehouse);
+
+	/**
+	 * Same decision as
+	 * {@link #createOrder(LocalDate, int, int, InventoryDatabase, MarketingInfo, Warehouse)},
+	 * including any stock level change, reported as a bare quantity so no
+	 * {@link Optional} or {@link Order} is created.
+	 *
+	 * @return units to order, 0 for no order
+	 */
+	default int orderQuantity(LocalDate when, int onHand, int onOrder, InventoryDatabase database, MarketingInfo marketingInfo, Warehouse warehouse){
+		return createOrder(when, onHand, onOrder, database, marketingInfo, warehouse).map(order -> order.quantity).orElse(0);
+	}
+
+	/**
+	 * Which rule made the decision
+	 * {@link #orderQuantity(LocalDate, int, int, InventoryDatabase, MarketingInfo, Warehouse)}
+	 * makes for the same arguments, without changing any stock level.
+	 */
+	default Outcome explain(LocalDate when, int onHand, int onOrder, MarketingInfo marketingInfo, Warehouse warehouse){
+		if(!stocks(warehouse)){
+			return Outcome.NOT_STOCKED;
+		}
+		return canOrder(when) ? Outcome.UNEXPLAINED : Outcome.OFF_SCHEDULE;
+	}
+
 	Optional<Order> createOrder(LocalDate when, InventoryDatabase database, MarketingInfo marketingInfo, Warehouse warehouse);
 
 	Optional<Order> createOrder(LocalDate when, InventoryDatabase database, MarketingInfo marketingInfo);
@@ -0,0 +1,91 @@
+package com.cjpowered.learn.inventory;
+
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * The inputs {@link StockedItem} and {@link SeasonalItem} feed to
+ * {@link ReorderRules}, and the {@link RuleSettings} they apply, copied into
+ * arrays indexed by {@link ItemRegistry} ID, for code that applies the rules
+ * to many items without going through {@link Item#orderQuantity}.
+ */
+public final class ItemColumns {
+
+    private static final int WAREHOUSES = Warehouse.values().length;
+
+    private final int[] targets;
+    private final int[] bunches;
+    private final Season[] seasons;
+    private final RuleSettings[] settings;
+
+    /**
+     * @throws IllegalArgumentException
+     *             if an item is neither a {@link StockedItem} nor a
+     *             {@link SeasonalItem}
+     */
+    public ItemColumns(final ItemRegistry items) {
+        this.targets = new int[items.size() * WAREHOUSES];
+        this.bunches = new int[items.size()];
+        this.seasons = new Season[items.size()];
+        this.settings = new RuleSettings[items.size()];
+        for (int id = 0; id < items.size(); id++) {
+            final Item item = items.item(id);
+            if (item instanceof SeasonalItem) {
+                final SeasonalItem seasonal = (SeasonalItem) item;
+                for (final Warehouse warehouse : Warehouse.values()) {
+                    targets[StockSnapshot.index(id, warehouse)] = seasonal.wantOnHand(warehouse);
+                }
+                bunches[id] = seasonal.ammountInABunch();
+                seasons[id] = seasonal.season();
+                settings[id] = seasonal.rules();
+            } else if (item instanceof StockedItem) {
+                final StockedItem stocked = (StockedItem) item;
+                for (final Warehouse warehouse : Warehouse.values()) {
+                    targets[StockSnapshot.index(id, warehouse)] = stocked.wantOnHand(warehouse);
+                }
+                bunches[id] = stocked.ammountInABunch();
+                settings[id] = stocked.rules();
+            } else {
+                throw new IllegalArgumentException("no rule inputs for " + item.getClass().getName());
+            }
+        }
+    }
+
+    /**
+     * @return normal stock level, or {@link ReorderRules#NOT_STOCKED}
+     */
+    public int target(final int id, final Warehouse warehouse) {
+        return targets[StockSnapshot.index(id, warehouse)];
+    }
+
+    public int bunch(final int id) {
+        return bunches[id];
+    }
+
+    /**
+     * @return high-demand season of a seasonal item, null for other items
+     */
+    public Season season(final int id) {
+        return seasons[id];
+    }
+
+    /**
+     * @return numbers the item applies the rules with
+     */
+    public RuleSettings settings(final int id) {
+        return settings[id];
+    }
+
+    /**
+     * @return {@link ReorderRules} flags for the item, as the item itself
+     *         would set them
+     */
+    public int flags(final int id, final Season current, final boolean onSale) {
+        int flags = onSale ? ReorderRules.ON_SALE : 0;
+        if (seasons[id] != null) {
+            flags |= ReorderRules.SEASONAL;
+            if (seasons[id].equals(current))
+                flags |= ReorderRules.IN_SEASON;
+        }
+        return flags;
+    }
+}
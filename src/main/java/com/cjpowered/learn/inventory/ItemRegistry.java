@@ -0,0 +1,68 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense {@code int} IDs for the items of one order run: an item's ID is its
+ * position in the list the registry was created from. Per-item state can then
+ * be kept in arrays indexed by ID rather than in maps keyed by {@link Item}.
+ *
+ * Code that walks the items already knows their IDs and never needs
+ * {@link #id(Item)}; the identity map behind it is only built on first use.
+ * Items are told apart by identity, as {@link InventoryDatabase} requires.
+ */
+public final class ItemRegistry {
+
+    private final Item[] items;
+    private volatile Map<Item, Integer> ids;
+
+    public ItemRegistry(final List<Item> items) {
+        this.items = items.toArray(new Item[items.size()]);
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public Item item(final int id) {
+        return items[id];
+    }
+
+    /**
+     * @return every item, in ID order
+     */
+    public List<Item> items() {
+        return Collections.unmodifiableList(Arrays.asList(items));
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the item is not registered
+     */
+    public int id(final Item item) {
+        final Integer id = ids().get(item);
+        if (id == null)
+            throw new IllegalArgumentException("item not registered: " + item);
+        return id;
+    }
+
+    public boolean contains(final Item item) {
+        return ids().containsKey(item);
+    }
+
+    private Map<Item, Integer> ids() {
+        Map<Item, Integer> ids = this.ids;
+        if (ids == null) {
+            ids = new IdentityHashMap<>(items.length);
+            for (int id = 0; id < items.length; id++) {
+                ids.put(items[id], id);
+            }
+            this.ids = ids;
+        }
+        return ids;
+    }
+}
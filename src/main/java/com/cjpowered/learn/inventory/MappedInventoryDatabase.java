@@ -0,0 +1,360 @@
+package com.cjpowered.learn.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * {@link InventoryDatabase} kept in a memory-mapped file of fixed-width
+ * records, for running the managers locally at production scale.
+ *
+ * The file holds a header, then one item record per item, then one stock
+ * record per item and warehouse:
+ *
+ * <pre>
+ * header  magic int, version int, item count int, warehouse count int
+ * item    kind byte (0 stocked, 1 seasonal), season byte, schedule byte,
+ *         unused byte, units per bunch int
+ * stock   on-hand int, on-order int, required on-hand int
+ * </pre>
+ *
+ * Stock records are row-major like {@link StockSnapshot}: item row, then
+ * {@link Warehouse#ordinal()}. A warehouse that does not stock an item has a
+ * required on-hand of {@link ReorderRules#NOT_STOCKED}. Integers are little
+ * endian. Schedules are limited to {@link AnyDay} and {@link FirstOfTheMonth}.
+ * One mapping covers the whole file, which caps it at 2 GB, about 38 million
+ * items.
+ *
+ * Opening reads only the header, so it takes the same time for any catalog
+ * size. Counts are read straight from the mapping. An item's position in the
+ * file is its record index, and items returned by {@link #stockItems()} carry
+ * it, so lookups need no map. {@link #setRequiredOnHand(Item, Warehouse, int)}
+ * writes the one record in place; the operating system writes it back to the
+ * file, and {@link #force()} or {@link #close()} does so immediately.
+ *
+ * Only items returned by this instance's {@link #stockItems()} are accepted.
+ * Counts may be read from many threads at once; writes and
+ * {@link #stockItems()} are synchronized.
+ */
+public final class MappedInventoryDatabase implements InventoryDatabase, AutoCloseable {
+
+    private static final int MAGIC = 0x494e5631;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int ITEM_BYTES = 8;
+    private static final int STOCK_BYTES = 12;
+    private static final int WAREHOUSES = Warehouse.values().length;
+
+    private static final byte STOCKED = 0;
+    private static final byte SEASONAL = 1;
+    private static final byte ANY_DAY = 0;
+    private static final byte FIRST_OF_THE_MONTH = 1;
+
+    private static final Schedule[] SCHEDULES = { new AnyDay(), new FirstOfTheMonth() };
+
+    private final MappedByteBuffer buffer;
+    private final RuleSettings rules;
+    private final int items;
+    private final int stockStart;
+    private Item[] built;
+
+    private MappedInventoryDatabase(final MappedByteBuffer buffer, final RuleSettings rules) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("not an inventory file");
+        if (buffer.getInt(4) != VERSION)
+            throw new IllegalArgumentException("unsupported inventory file version " + buffer.getInt(4));
+        if (buffer.getInt(12) != WAREHOUSES)
+            throw new IllegalArgumentException("inventory file has " + buffer.getInt(12) + " warehouses, expected " + WAREHOUSES);
+        this.buffer = buffer;
+        this.rules = rules;
+        this.items = buffer.getInt(8);
+        this.stockStart = HEADER_BYTES + items * ITEM_BYTES;
+        if (buffer.capacity() != size(items))
+            throw new IllegalArgumentException("inventory file is truncated");
+    }
+
+    /**
+     * Map an existing inventory file for reading and writing.
+     */
+    public static MappedInventoryDatabase open(final Path file) {
+        return open(file, RuleSettings.DEFAULT);
+    }
+
+    /**
+     * Map an existing inventory file for reading and writing, with items
+     * that reorder by {@code rules}.
+     */
+    public static MappedInventoryDatabase open(final Path file, final RuleSettings rules) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new MappedInventoryDatabase(channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()), rules);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write a new inventory file, replacing any existing one, and map it.
+     *
+     * @param items
+     *            {@link StockedItem} and {@link SeasonalItem} instances to
+     *            store, in record order
+     * @param stock
+     *            database to copy their on-hand and on-order counts from
+     */
+    public static MappedInventoryDatabase create(final Path file, final List<Item> items, final InventoryDatabase stock) {
+        return create(file, items, stock, RuleSettings.DEFAULT);
+    }
+
+    /**
+     * Write a new inventory file, replacing any existing one, and map it
+     * with items that reorder by {@code rules}. The file does not record
+     * them, so open it again with the same rules.
+     *
+     * The records are written to a temporary file next to {@code file},
+     * which is then moved into its place in one step, so a failure leaves any
+     * existing file as it was.
+     *
+     * @param items
+     *            {@link StockedItem} and {@link SeasonalItem} instances to
+     *            store, in record order
+     * @param stock
+     *            database to copy their on-hand and on-order counts from
+     * @throws IllegalArgumentException
+     *             if an item or its schedule cannot be stored
+     */
+    public static MappedInventoryDatabase create(final Path file, final List<Item> items, final InventoryDatabase stock,
+            final RuleSettings rules) {
+        final long size = size(items.size());
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("too many items for one file: " + items.size());
+        for (final Item item : items) {
+            if (!(item instanceof SeasonalItem) && !(item instanceof StockedItem))
+                throw new IllegalArgumentException("cannot store " + item.getClass().getName());
+            schedule(item);
+        }
+        final StockSnapshot snapshot = stock.stockSnapshot(items);
+        final Path directory = file.toAbsolutePath().getParent();
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            final MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            write(buffer, items, snapshot);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            temporary = null;
+            return new MappedInventoryDatabase(buffer, rules);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (temporary != null)
+                deleteQuietly(temporary);
+        }
+    }
+
+    private static void write(final MappedByteBuffer buffer, final List<Item> items, final StockSnapshot snapshot) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(items.size()).putInt(WAREHOUSES);
+        for (final Item item : items) {
+            if (item instanceof SeasonalItem) {
+                final SeasonalItem seasonal = (SeasonalItem) item;
+                buffer.put(SEASONAL).put((byte) seasonal.season().ordinal()).put(schedule(item)).put((byte) 0)
+                        .putInt(seasonal.ammountInABunch());
+            } else {
+                buffer.put(STOCKED).put((byte) 0).put(schedule(item)).put((byte) 0)
+                        .putInt(((StockedItem) item).ammountInABunch());
+            }
+        }
+        for (final Item item : items) {
+            for (final Warehouse warehouse : Warehouse.values()) {
+                final boolean stocked = item.stocks(warehouse);
+                buffer.putInt(stocked ? snapshot.onHand(item, warehouse) : 0)
+                        .putInt(stocked ? snapshot.onOrder(item, warehouse) : 0)
+                        .putInt(target(item, warehouse));
+            }
+        }
+        buffer.force();
+        buffer.clear();
+    }
+
+    private static void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException e) {
+            // the failure being reported matters more than a leftover file
+        }
+    }
+
+    private static long size(final int items) {
+        return HEADER_BYTES + (long) items * ITEM_BYTES + (long) items * WAREHOUSES * STOCK_BYTES;
+    }
+
+    private static byte schedule(final Item item) {
+        final Schedule schedule = item.schedule();
+        if (schedule instanceof AnyDay)
+            return ANY_DAY;
+        if (schedule instanceof FirstOfTheMonth)
+            return FIRST_OF_THE_MONTH;
+        throw new IllegalArgumentException("cannot store schedule " + schedule.getClass().getName());
+    }
+
+    private static int target(final Item item, final Warehouse warehouse) {
+        return item instanceof SeasonalItem ? ((SeasonalItem) item).wantOnHand(warehouse)
+                : ((StockedItem) item).wantOnHand(warehouse);
+    }
+
+    /**
+     * Items are built from their records on the first call and kept, so later
+     * calls return the same instances. An item whose required on-hand amount
+     * has changed since is built again with the new amount.
+     */
+    @Override
+    public synchronized List<Item> stockItems() {
+        if (built == null)
+            built = new Item[items];
+        final Season[] seasons = Season.values();
+        final List<Item> stocked = new ArrayList<>(items);
+        for (int row = 0; row < items; row++) {
+            if (built[row] != null) {
+                stocked.add(built[row]);
+                continue;
+            }
+            final int at = HEADER_BYTES + row * ITEM_BYTES;
+            final Schedule schedule = SCHEDULES[buffer.get(at + 2)];
+            final int bunch = buffer.getInt(at + 4);
+            final int[] wantOnHand = new int[WAREHOUSES];
+            for (int column = 0; column < WAREHOUSES; column++) {
+                wantOnHand[column] = buffer.getInt(stockStart + (row * WAREHOUSES + column) * STOCK_BYTES + 8);
+            }
+            built[row] = buffer.get(at) == SEASONAL
+                    ? new StoredSeasonalItem(this, row, wantOnHand, seasons[buffer.get(at + 1)], schedule, bunch, rules)
+                    : new StoredItem(this, row, wantOnHand, schedule, bunch, rules);
+            stocked.add(built[row]);
+        }
+        return stocked;
+    }
+
+    @Override
+    public int onHand(final Item item, final Warehouse warehouse) {
+        return buffer.getInt(record(item, warehouse));
+    }
+
+    @Override
+    public int onOrder(final Item item, final Warehouse warehouse) {
+        return buffer.getInt(record(item, warehouse) + 4);
+    }
+
+    @Override
+    public synchronized void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+        buffer.putInt(record(item, warehouse) + 8, newAmount);
+        if (built != null)
+            built[row(item)] = null;
+    }
+
+    /**
+     * The item's record index, kept when the item is built again.
+     */
+    @Override
+    public Object rowKey(final Item item) {
+        return row(item);
+    }
+
+    @Override
+    public StockSnapshot stockSnapshot(final List<Item> items) {
+        final int[] onHand = new int[items.size() * WAREHOUSES];
+        final int[] onOrder = new int[onHand.length];
+        for (int row = 0; row < items.size(); row++) {
+            final int first = record(items.get(row), Warehouse.values()[0]);
+            for (int column = 0; column < WAREHOUSES; column++) {
+                onHand[row * WAREHOUSES + column] = buffer.getInt(first + column * STOCK_BYTES);
+                onOrder[row * WAREHOUSES + column] = buffer.getInt(first + column * STOCK_BYTES + 4);
+            }
+        }
+        return new StockSnapshot(items, onHand, onOrder);
+    }
+
+    @Override
+    @Deprecated
+    public int onHand(final Item item) {
+        return onHand(item, Warehouse.home());
+    }
+
+    @Override
+    @Deprecated
+    public int onOrder(final Item item) {
+        return onOrder(item, Warehouse.home());
+    }
+
+    @Override
+    @Deprecated
+    public void setRequiredOnHand(final Item item, final int newAmount) {
+        setRequiredOnHand(item, Warehouse.home(), newAmount);
+    }
+
+    /**
+     * Write changes back to the file now.
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    /**
+     * Same as {@link #force()}. The mapping itself is released when this
+     * instance is garbage collected.
+     */
+    @Override
+    public void close() {
+        force();
+    }
+
+    private int record(final Item item, final Warehouse warehouse) {
+        return stockStart + (row(item) * WAREHOUSES + warehouse.ordinal()) * STOCK_BYTES;
+    }
+
+    private int row(final Item item) {
+        if (item instanceof StoredItem && ((StoredItem) item).database == this)
+            return ((StoredItem) item).row;
+        if (item instanceof StoredSeasonalItem && ((StoredSeasonalItem) item).database == this)
+            return ((StoredSeasonalItem) item).row;
+        throw new IllegalArgumentException("item not from this database: " + item);
+    }
+
+    private static final class StoredItem extends StockedItem {
+
+        private final MappedInventoryDatabase database;
+        private final int row;
+
+        StoredItem(final MappedInventoryDatabase database, final int row, final int[] wantOnHand, final Schedule schedule, final int bunch,
+                final RuleSettings rules) {
+            super(wantOnHand, schedule, bunch, rules);
+            this.database = database;
+            this.row = row;
+        }
+    }
+
+    private static final class StoredSeasonalItem extends SeasonalItem {
+
+        private final MappedInventoryDatabase database;
+        private final int row;
+
+        StoredSeasonalItem(final MappedInventoryDatabase database, final int row, final int[] wantOnHand, final Season season,
+                final Schedule schedule, final int bunch, final RuleSettings rules) {
+            super(wantOnHand, season, schedule, bunch, rules);
+            this.database = database;
+            this.row = row;
+        }
+    }
+
+}
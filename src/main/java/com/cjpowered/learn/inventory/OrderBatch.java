@@ -0,0 +1,211 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Orders of a run held as parallel primitive columns: item ID in an
+ * {@link ItemRegistry}, quantity, and {@link Warehouse#ordinal()}. A batch
+ * takes a few bytes per order instead of an {@link Order} object each.
+ *
+ * Read orders by position with {@link #itemId(int)}, {@link #quantity(int)}
+ * and {@link #warehouse(int)} without allocating; {@link #iterator()} and
+ * {@link #toList()} create {@link Order} instances for callers that want
+ * them. Batches are immutable.
+ */
+public final class OrderBatch implements Iterable<Order> {
+
+    private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+    private final ItemRegistry items;
+    private final int size;
+    private final int[] ids;
+    private final int[] quantities;
+    private final byte[] warehouses;
+
+    private OrderBatch(final ItemRegistry items, final int size, final int[] ids, final int[] quantities, final byte[] warehouses) {
+        this.items = items;
+        this.size = size;
+        this.ids = ids;
+        this.quantities = quantities;
+        this.warehouses = warehouses;
+    }
+
+    /**
+     * Batch of existing orders, in the same order, numbering their items in
+     * order of first appearance.
+     */
+    public static OrderBatch of(final List<Order> orders) {
+        final Map<Item, Integer> ids = new IdentityHashMap<>();
+        final List<Item> items = new ArrayList<>();
+        final int[] itemIds = new int[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            final Item item = orders.get(i).item;
+            Integer id = ids.get(item);
+            if (id == null) {
+                id = items.size();
+                ids.put(item, id);
+                items.add(item);
+            }
+            itemIds[i] = id;
+        }
+        final Builder batch = new Builder(new ItemRegistry(items), orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            batch.add(itemIds[i], orders.get(i).quantity, orders.get(i).warehouse);
+        }
+        return batch.build();
+    }
+
+    /**
+     * registry the item IDs refer to
+     */
+    public ItemRegistry items() {
+        return items;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int itemId(final int index) {
+        return ids[check(index)];
+    }
+
+    public Item item(final int index) {
+        return items.item(itemId(index));
+    }
+
+    public int quantity(final int index) {
+        return quantities[check(index)];
+    }
+
+    public Warehouse warehouse(final int index) {
+        return WAREHOUSES[warehouses[check(index)]];
+    }
+
+    public Order order(final int index) {
+        return new Order(item(index), quantity(index), warehouse(index));
+    }
+
+    /**
+     * Orders shipping to one warehouse, in the same relative order. The
+     * slice is a new batch sharing this batch's item IDs.
+     */
+    public OrderBatch forWarehouse(final Warehouse warehouse) {
+        final Builder slice = new Builder(items, 16);
+        for (int i = 0; i < size; i++) {
+            if (warehouses[i] == warehouse.ordinal())
+                slice.add(ids[i], quantities[i], warehouse);
+        }
+        return slice.build();
+    }
+
+    @Override
+    public Iterator<Order> iterator() {
+        return new Iterator<Order>() {
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Order next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return order(next++);
+            }
+        };
+    }
+
+    /**
+     * @return the orders as a list, for callers of
+     *         {@link InventoryManager#getOrders(java.time.LocalDate)}
+     */
+    public List<Order> toList() {
+        final List<Order> orders = new ArrayList<>(size);
+        for (final Order order : this) {
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /**
+     * Read-only list view creating each {@link Order} as it is read.
+     */
+    public List<Order> asList() {
+        return new AbstractList<Order>() {
+
+            @Override
+            public Order get(final int index) {
+                return order(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int check(final int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("order " + index + " of " + size);
+        return index;
+    }
+
+    /**
+     * Appends orders to new columns, growing them as needed. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private final ItemRegistry items;
+        private int size;
+        private int[] ids;
+        private int[] quantities;
+        private byte[] warehouses;
+
+        /**
+         * @param expected
+         *            number of orders to make room for up front
+         */
+        public Builder(final ItemRegistry items, final int expected) {
+            final int capacity = Math.max(expected, 1);
+            this.items = items;
+            this.ids = new int[capacity];
+            this.quantities = new int[capacity];
+            this.warehouses = new byte[capacity];
+        }
+
+        public Builder add(final int itemId, final int quantity, final Warehouse warehouse) {
+            if (itemId < 0 || itemId >= items.size())
+                throw new IllegalArgumentException("no item " + itemId + " in registry of " + items.size());
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+                warehouses = Arrays.copyOf(warehouses, size * 2);
+            }
+            ids[size] = itemId;
+            quantities[size] = quantity;
+            warehouses[size] = (byte) warehouse.ordinal();
+            size++;
+            return this;
+        }
+
+        /**
+         * The builder must not be used afterwards.
+         */
+        public OrderBatch build() {
+            return new OrderBatch(items, size, ids, quantities, warehouses);
+        }
+    }
+
+}
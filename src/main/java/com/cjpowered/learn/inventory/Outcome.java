@@ -0,0 +1,44 @@
+package com.cjpowered.learn.inventory;
+
+/**
+ * Why the reorder rules did or did not order an item for a warehouse.
+ */
+public enum Outcome {
+
+    /**
+     * an order was placed
+     */
+    ORDERED,
+
+    /**
+     * the warehouse does not stock the item
+     */
+    NOT_STOCKED,
+
+    /**
+     * the item's schedule does not allow ordering today
+     */
+    OFF_SCHEDULE,
+
+    /**
+     * stock on hand and on order is exactly the normal stock level
+     */
+    AT_TARGET,
+
+    /**
+     * stock on hand and on order is above the reorder point, 80% of the
+     * stock level by default
+     */
+    ENOUGH_STOCK,
+
+    /**
+     * nothing was left to order once rounded to whole bunches
+     */
+    ROUNDED_TO_ZERO,
+
+    /**
+     * the item does not say why it placed no order
+     */
+    UNEXPLAINED
+
+}
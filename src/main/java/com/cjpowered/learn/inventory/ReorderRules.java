@@ -0,0 +1,141 @@
+package com.cjpowered.learn.inventory;
+
+/**
+ * The reorder rules from the README as plain arithmetic on stock counts, with
+ * the numbers of a {@link RuleSettings}, {@link RuleSettings#DEFAULT} unless
+ * one is given. {@link RulePlan} applies the same rules compiled per item.
+ *
+ * {@link #evaluate(int, int, int[], int[], int[], int[], byte[], RuleSettings, int[])}
+ * applies the same rules to many item and warehouse pairs held in parallel
+ * arrays. Its loop body has no calls or early exits so the JIT can keep it in
+ * registers and unroll it.
+ */
+public final class ReorderRules {
+
+    /**
+     * target of a warehouse that does not stock the item
+     */
+    public static final int NOT_STOCKED = Integer.MIN_VALUE;
+
+    /**
+     * flag: the item is on sale
+     */
+    public static final byte ON_SALE = 1;
+
+    /**
+     * flag: the item is a seasonal item
+     */
+    public static final byte SEASONAL = 2;
+
+    /**
+     * flag: it is the seasonal item's high-demand season
+     */
+    public static final byte IN_SEASON = 4;
+
+    /**
+     * flag: the item's schedule does not allow ordering today
+     */
+    public static final byte OFF_SCHEDULE = 8;
+
+    private ReorderRules() {
+    }
+
+    /**
+     * Quantity to order for one item in one warehouse under
+     * {@link RuleSettings#DEFAULT}.
+     *
+     * @see #quantity(int, int, int, int, int, RuleSettings)
+     */
+    public static int quantity(final int onHand, final int onOrder, final int target, final int bunch, final int flags) {
+        return quantity(onHand, onOrder, target, bunch, flags, RuleSettings.DEFAULT);
+    }
+
+    /**
+     * Quantity to order for one item in one warehouse.
+     *
+     * @param target
+     *            normal stock level, or {@link #NOT_STOCKED}
+     * @param bunch
+     *            units per package, at least 1
+     * @param flags
+     *            any of {@link #ON_SALE}, {@link #SEASONAL},
+     *            {@link #IN_SEASON} and {@link #OFF_SCHEDULE}
+     *
+     * @return units to order, 0 for no order
+     */
+    public static int quantity(final int onHand, final int onOrder, final int target, final int bunch, final int flags,
+            final RuleSettings settings) {
+        final int total = onHand + onOrder;
+        if (target == NOT_STOCKED || target == total || target == 0 || (flags & OFF_SCHEDULE) != 0)
+            return 0;
+
+        final int level = level(target, flags, settings);
+        if (settings.enough(total, level))
+            return 0;
+
+        final int toOrder = level - total;
+        if (bunch == 1 || toOrder % bunch == 0)
+            return toOrder < 1 ? 0 : toOrder;
+
+        final int bunches = (int) Math.ceil((float) toOrder / (float) bunch);
+        if (bunches * bunch + total > target)
+            return bunches == 1 ? 0 : (bunches - 1) * bunch;
+        return toOrder < 1 ? 0 : bunches * bunch;
+    }
+
+    /**
+     * Stock level to order up to under {@link RuleSettings#DEFAULT}.
+     */
+    public static int level(final int target, final int flags) {
+        return level(target, flags, RuleSettings.DEFAULT);
+    }
+
+    /**
+     * Stock level to order up to. Sale and season modifiers do not stack;
+     * out of season a seasonal item ignores sales.
+     */
+    public static int level(final int target, final int flags, final RuleSettings settings) {
+        return settings.level(target, (flags & SEASONAL) != 0, (flags & ON_SALE) != 0, (flags & IN_SEASON) != 0);
+    }
+
+    /**
+     * New normal stock level after an item runs out: 10% more, rounded up.
+     */
+    public static int raisedTarget(final int target) {
+        return RuleSettings.DEFAULT.raisedTarget(target);
+    }
+
+    /**
+     * Apply {@link #quantity(int, int, int, int, int, RuleSettings)} to
+     * entries {@code from} up to {@code to} of parallel arrays, writing each
+     * result to {@code quantity}. Every row's arithmetic is done before the
+     * rows that order nothing are masked out, so a bunch size below 1, as a
+     * warehouse that does not stock the item may have, is taken as 1.
+     */
+    public static void evaluate(final int from, final int to, final int[] onHand, final int[] onOrder, final int[] target,
+            final int[] bunch, final byte[] flags, final RuleSettings settings, final int[] quantity) {
+        final int saleBoost = settings.saleBoost;
+        final int seasonFactor = settings.seasonFactor;
+        final double reorderBelow = settings.reorderBelow;
+        for (int i = from; i < to; i++) {
+            final int total = onHand[i] + onOrder[i];
+            final int t = target[i];
+            final int f = flags[i];
+            final int b = Math.max(bunch[i], 1);
+            final boolean sale = (f & ON_SALE) != 0;
+
+            final int level = (f & SEASONAL) == 0 ? (sale ? t + saleBoost : t)
+                    : (f & IN_SEASON) == 0 ? t : (sale && t * (seasonFactor - 1) < saleBoost ? t + saleBoost : t * seasonFactor);
+            final int toOrder = level - total;
+            final int bunches = (int) Math.ceil((float) toOrder / (float) b);
+            final int rounded = b == 1 || toOrder % b == 0 ? (toOrder < 1 ? 0 : toOrder)
+                    : bunches * b + total > t ? (bunches == 1 ? 0 : (bunches - 1) * b)
+                    : (toOrder < 1 ? 0 : bunches * b);
+
+            final boolean skip = t == NOT_STOCKED | t == total | t == 0 | (f & OFF_SCHEDULE) != 0
+                    | (float) total / (float) level > reorderBelow;
+            quantity[i] = skip ? 0 : rounded;
+        }
+    }
+
+}
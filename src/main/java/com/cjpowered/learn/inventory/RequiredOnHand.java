@@ -0,0 +1,54 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Objects;
+
+/**
+ * Change command: new nominal stock level of an item in a warehouse.
+ */
+public final class RequiredOnHand {
+
+    /**
+     * item to change
+     */
+    public final Item item;
+
+    /**
+     * warehouse whose stock level changes
+     */
+    public final Warehouse warehouse;
+
+    /**
+     * new nominal stock level
+     */
+    public final int amount;
+
+    public RequiredOnHand(final Item item, final Warehouse warehouse, final int amount) {
+        this.item = item;
+        this.warehouse = warehouse;
+        this.amount = amount;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        else if (obj instanceof RequiredOnHand)
+            return this.item.equals(((RequiredOnHand) obj).item) && this.warehouse == ((RequiredOnHand) obj).warehouse
+                    && this.amount == ((RequiredOnHand) obj).amount;
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.item, this.warehouse, this.amount);
+    }
+
+    @Override
+    public String toString() {
+        return "RequiredOnHand{" +
+                "item=" + item +
+                ", warehouse=" + warehouse +
+                ", amount=" + amount +
+                '}';
+    }
+}
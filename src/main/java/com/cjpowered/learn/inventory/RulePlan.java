@@ -0,0 +1,286 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * One item's reorder rules compiled for a {@link RuleSettings}. The stock
+ * level for every warehouse, sale and season, and the most stock at which an
+ * order is still due, are worked out once when the item is built, so a
+ * decision is a few array reads and the rounding to bunches, if the item has
+ * any.
+ *
+ * Decisions match {@link ReorderRules#quantity(int, int, int, int, int)}
+ * under {@link RuleSettings#DEFAULT}. An item with a negative target, or a
+ * stock level that overflows, gets a plan that checks the reorder point on
+ * every decision instead.
+ *
+ * Plans are interned: items with the same targets, bunch size and settings
+ * share one, so a catalog pays for each distinct plan once and every item
+ * holds only a reference. The plan owns the item's targets.
+ */
+abstract class RulePlan {
+
+    private static final int WAREHOUSES = Warehouse.values().length;
+
+    private static final Interner<RulePlan> PLANS = Interners.newWeakInterner();
+
+    /**
+     * per warehouse: stock level as given, {@link ReorderRules#NOT_STOCKED}
+     * or 0 if not stocked
+     */
+    private final int[] targets;
+
+    private final int bunch;
+    private final boolean seasonal;
+    private final RuleSettings settings;
+
+    /**
+     * per {@link #at(int, boolean, boolean, boolean)}: stock level to order
+     * up to
+     */
+    private final int[] levels;
+
+    /**
+     * per {@link #at(int, boolean, boolean, boolean)}: most stock that is
+     * still
+     * reordered
+     */
+    private final int[] reorderAt;
+
+    private RulePlan(final int[] targets, final int bunch, final boolean seasonal, final RuleSettings settings, final int[] levels,
+            final int[] reorderAt) {
+        this.targets = targets;
+        this.bunch = bunch;
+        this.seasonal = seasonal;
+        this.settings = settings;
+        this.levels = levels;
+        this.reorderAt = reorderAt;
+    }
+
+    /**
+     * @param wantOnHand
+     *            targets indexed by {@link Warehouse#ordinal()}, owned by the
+     *            plan
+     * @param seasonal
+     *            whether the season affects the stock level
+     *
+     * @return the plan shared by every item with these rules
+     */
+    static RulePlan compile(final int[] wantOnHand, final int bunch, final boolean seasonal, final RuleSettings settings) {
+        final int cases = seasonal ? 4 : 2;
+        final int[] levels = new int[WAREHOUSES * cases];
+        final int[] reorderAt = new int[WAREHOUSES * cases];
+        boolean stepwise = bunch < 1;
+        for (int w = 0; w < WAREHOUSES; w++) {
+            final int target = stocked(wantOnHand[w]) ? wantOnHand[w] : ReorderRules.NOT_STOCKED;
+            stepwise |= target < 0 && target != ReorderRules.NOT_STOCKED;
+            for (int c = 0; c < cases; c++) {
+                final boolean onSale = (c & 1) != 0;
+                final boolean inSeason = (c & 2) != 0;
+                final int at = at(w, seasonal, onSale, inSeason);
+                if (target == ReorderRules.NOT_STOCKED) {
+                    reorderAt[at] = Integer.MIN_VALUE;
+                    continue;
+                }
+                levels[at] = settings.level(target, seasonal, onSale, inSeason);
+                stepwise |= levels[at] <= 0;
+                if (levels[at] > 0)
+                    reorderAt[at] = reorderAt(levels[at], settings);
+            }
+        }
+        final RulePlan plan;
+        if (stepwise) {
+            for (int at = 0; at < reorderAt.length; at++) {
+                reorderAt[at] = Integer.MAX_VALUE;
+            }
+            plan = new Stepwise(wantOnHand, bunch, seasonal, settings, levels, reorderAt);
+        } else {
+            plan = bunch == 1 ? new Units(wantOnHand, seasonal, settings, levels, reorderAt)
+                    : new Bunches(wantOnHand, bunch, seasonal, settings, levels, reorderAt);
+        }
+        return PLANS.intern(plan);
+    }
+
+    private static boolean stocked(final int target) {
+        return target != ReorderRules.NOT_STOCKED && target != 0;
+    }
+
+    /**
+     * Largest total not {@link RuleSettings#enough(int, int)} for a positive
+     * level, which only grows with the total.
+     */
+    private static int reorderAt(final int level, final RuleSettings settings) {
+        long total = (long) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.floor(level * settings.reorderBelow)));
+        while (total < Integer.MAX_VALUE && !settings.enough((int) total + 1, level)) {
+            total++;
+        }
+        while (total > Integer.MIN_VALUE && settings.enough((int) total, level)) {
+            total--;
+        }
+        return (int) total;
+    }
+
+    /**
+     * Plans not compiled as seasonal keep no in-season cases.
+     */
+    private static int at(final int warehouse, final boolean seasonal, final boolean onSale, final boolean inSeason) {
+        if (!seasonal)
+            return warehouse << 1 | (onSale ? 1 : 0);
+        return warehouse << 2 | (onSale ? 1 : 0) | (inSeason ? 2 : 0);
+    }
+
+    /**
+     * @param inSeason
+     *            whether it is the item's high-demand season; ignored for
+     *            plans compiled as not seasonal
+     *
+     * @return units to order, 0 for no order
+     */
+    final int quantity(final Warehouse warehouse, final int onHand, final int onOrder, final boolean onSale, final boolean inSeason) {
+        final int w = warehouse.ordinal();
+        final int at = at(w, seasonal, onSale, inSeason);
+        final int total = onHand + onOrder;
+        final int target = targets[w];
+        if (total > reorderAt[at] || total == target || !stocked(target))
+            return 0;
+        return round(levels[at] - total, total, target);
+    }
+
+    /**
+     * Which rule decided {@link #quantity(Warehouse, int, int, boolean, boolean)}.
+     */
+    final Outcome outcome(final Warehouse warehouse, final int onHand, final int onOrder, final boolean onSale, final boolean inSeason) {
+        final int w = warehouse.ordinal();
+        final int at = at(w, seasonal, onSale, inSeason);
+        final int total = onHand + onOrder;
+        final int target = targets[w];
+        if (!stocked(target))
+            return Outcome.NOT_STOCKED;
+        if (total == target)
+            return Outcome.AT_TARGET;
+        if (total > reorderAt[at] || !reorders(total, levels[at]))
+            return Outcome.ENOUGH_STOCK;
+        return round(levels[at] - total, total, target) == 0 ? Outcome.ROUNDED_TO_ZERO : Outcome.ORDERED;
+    }
+
+    /**
+     * Stock level to set after the item ran out in {@code warehouse}.
+     */
+    final int raisedTarget(final Warehouse warehouse) {
+        final int target = targets[warehouse.ordinal()];
+        return stocked(target) ? settings.raisedTarget(target) : ReorderRules.NOT_STOCKED;
+    }
+
+    /**
+     * @return stock level as the item was given it
+     */
+    final int target(final Warehouse warehouse) {
+        return targets[warehouse.ordinal()];
+    }
+
+    final boolean stocks(final Warehouse warehouse) {
+        return stocked(targets[warehouse.ordinal()]);
+    }
+
+    final int bunch() {
+        return bunch;
+    }
+
+    final RuleSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Plans are equal when compiled from equal rules, and then decide alike.
+     */
+    @Override
+    public final boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        else if (obj instanceof RulePlan)
+            return Arrays.equals(this.targets, ((RulePlan) obj).targets) && this.bunch == ((RulePlan) obj).bunch
+                    && this.seasonal == ((RulePlan) obj).seasonal && this.settings.equals(((RulePlan) obj).settings);
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(Arrays.hashCode(this.targets), this.bunch, this.seasonal, this.settings);
+    }
+
+    /**
+     * @return units to order towards a level {@code toOrder} above
+     *         {@code total}, which is at most the reorder point
+     */
+    abstract int round(int toOrder, int total, int target);
+
+    /**
+     * @return whether stock is low enough to reorder, for plans that do not
+     *         know their reorder points
+     */
+    boolean reorders(final int total, final int level) {
+        return true;
+    }
+
+    private static final class Units extends RulePlan {
+
+        Units(final int[] targets, final boolean seasonal, final RuleSettings settings, final int[] levels, final int[] reorderAt) {
+            super(targets, 1, seasonal, settings, levels, reorderAt);
+        }
+
+        @Override
+        int round(final int toOrder, final int total, final int target) {
+            return toOrder < 1 ? 0 : toOrder;
+        }
+    }
+
+    private static final class Bunches extends RulePlan {
+
+        Bunches(final int[] targets, final int bunch, final boolean seasonal, final RuleSettings settings, final int[] levels,
+                final int[] reorderAt) {
+            super(targets, bunch, seasonal, settings, levels, reorderAt);
+        }
+
+        @Override
+        int round(final int toOrder, final int total, final int target) {
+            final int bunch = bunch();
+            if (toOrder % bunch == 0)
+                return toOrder < 1 ? 0 : toOrder;
+            final int bunches = (int) Math.ceil((float) toOrder / (float) bunch);
+            if (bunches * bunch + total > target)
+                return bunches == 1 ? 0 : (bunches - 1) * bunch;
+            return toOrder < 1 ? 0 : bunches * bunch;
+        }
+    }
+
+    private static final class Stepwise extends RulePlan {
+
+        Stepwise(final int[] targets, final int bunch, final boolean seasonal, final RuleSettings settings, final int[] levels,
+                final int[] reorderAt) {
+            super(targets, bunch, seasonal, settings, levels, reorderAt);
+        }
+
+        @Override
+        boolean reorders(final int total, final int level) {
+            return !settings().enough(total, level);
+        }
+
+        @Override
+        int round(final int toOrder, final int total, final int target) {
+            final int bunch = bunch();
+            if (settings().enough(total, toOrder + total))
+                return 0;
+            if (bunch == 1 || toOrder % bunch == 0)
+                return toOrder < 1 ? 0 : toOrder;
+            final int bunches = (int) Math.ceil((float) toOrder / (float) bunch);
+            if (bunches * bunch + total > target)
+                return bunches == 1 ? 0 : (bunches - 1) * bunch;
+            return toOrder < 1 ? 0 : bunches * bunch;
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Objects;
+
+/**
+ * The numbers in the reorder rules. {@link #DEFAULT} holds those of the
+ * README, which {@link ReorderRules} applies directly.
+ */
+public final class RuleSettings {
+
+    /**
+     * order once stock falls to 80% of the stock level or below
+     */
+    public static final double DEFAULT_REORDER_BELOW = 0.80;
+
+    /**
+     * units added to the stock level of an item on sale
+     */
+    public static final int DEFAULT_SALE_BOOST = 20;
+
+    /**
+     * factor on a seasonal item's stock level in its season
+     */
+    public static final int DEFAULT_SEASON_FACTOR = 2;
+
+    /**
+     * factor on the stock level of an item that ran out
+     */
+    public static final double DEFAULT_RAISE_FACTOR = 1.1;
+
+    public static final RuleSettings DEFAULT = new RuleSettings(DEFAULT_REORDER_BELOW, DEFAULT_SALE_BOOST,
+            DEFAULT_SEASON_FACTOR, DEFAULT_RAISE_FACTOR);
+
+    /**
+     * largest share of the stock level that stock may make up and still be
+     * reordered
+     */
+    public final double reorderBelow;
+
+    /**
+     * units added to the stock level of an item on sale
+     */
+    public final int saleBoost;
+
+    /**
+     * factor on a seasonal item's stock level in its season
+     */
+    public final int seasonFactor;
+
+    /**
+     * factor on the stock level of an item that ran out, rounded up
+     */
+    public final double raiseFactor;
+
+    /**
+     * A seasonal item on sale in its season gets whichever of the sale boost
+     * and the season factor raises its stock level more.
+     *
+     * @throws IllegalArgumentException
+     *             unless {@code reorderBelow} is positive, {@code saleBoost}
+     *             is not negative and both factors are at least 1
+     */
+    public RuleSettings(final double reorderBelow, final int saleBoost, final int seasonFactor, final double raiseFactor) {
+        if (!(reorderBelow > 0))
+            throw new IllegalArgumentException("reorderBelow must be positive: " + reorderBelow);
+        if (saleBoost < 0)
+            throw new IllegalArgumentException("saleBoost must not be negative: " + saleBoost);
+        if (seasonFactor < 1)
+            throw new IllegalArgumentException("seasonFactor must be at least 1: " + seasonFactor);
+        if (!(raiseFactor >= 1))
+            throw new IllegalArgumentException("raiseFactor must be at least 1: " + raiseFactor);
+        this.reorderBelow = reorderBelow;
+        this.saleBoost = saleBoost;
+        this.seasonFactor = seasonFactor;
+        this.raiseFactor = raiseFactor;
+    }
+
+    /**
+     * Stock level to order up to, as {@link ReorderRules#level(int, int)}
+     * works it out.
+     */
+    public int level(final int target, final boolean seasonal, final boolean onSale, final boolean inSeason) {
+        if (!seasonal)
+            return onSale ? target + saleBoost : target;
+        if (!inSeason)
+            return target;
+        return onSale && target * (seasonFactor - 1) < saleBoost ? target + saleBoost : target * seasonFactor;
+    }
+
+    /**
+     * @return whether {@code total} units are too many to reorder towards
+     *         {@code level}
+     */
+    public boolean enough(final int total, final int level) {
+        return (float) total / (float) level > reorderBelow;
+    }
+
+    /**
+     * New normal stock level after an item runs out.
+     */
+    public int raisedTarget(final int target) {
+        return (int) Math.ceil(target * raiseFactor);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        else if (obj instanceof RuleSettings)
+            return this.reorderBelow == ((RuleSettings) obj).reorderBelow && this.saleBoost == ((RuleSettings) obj).saleBoost
+                    && this.seasonFactor == ((RuleSettings) obj).seasonFactor
+                    && this.raiseFactor == ((RuleSettings) obj).raiseFactor;
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.reorderBelow, this.saleBoost, this.seasonFactor, this.raiseFactor);
+    }
+
+    @Override
+    public String toString() {
+        return "RuleSettings{" +
+                "reorderBelow=" + reorderBelow +
+                ", saleBoost=" + saleBoost +
+                ", seasonFactor=" + seasonFactor +
+                ", raiseFactor=" + raiseFactor +
+                '}';
+    }
+}
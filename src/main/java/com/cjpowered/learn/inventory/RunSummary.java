@@ -0,0 +1,65 @@
+package com.cjpowered.learn.inventory;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.cjpowered.learn.metrics.CallMetrics;
+import com.cjpowered.learn.metrics.LatencyHistogram;
+
+/**
+ * Where the time of one order run went.
+ */
+public final class RunSummary {
+
+    /**
+     * wall-clock time of the run
+     */
+    public final Duration elapsed;
+
+    /**
+     * database calls made during the run, by method name
+     */
+    public final Map<String, LatencyHistogram.Snapshot> database;
+
+    /**
+     * marketing calls made during the run, by method name
+     */
+    public final Map<String, LatencyHistogram.Snapshot> marketing;
+
+    public RunSummary(final Duration elapsed, final Map<String, LatencyHistogram.Snapshot> database,
+            final Map<String, LatencyHistogram.Snapshot> marketing) {
+        this.elapsed = elapsed;
+        this.database = database;
+        this.marketing = marketing;
+    }
+
+    public Duration databaseTime() {
+        return Duration.ofNanos(CallMetrics.totalNanos(database));
+    }
+
+    public Duration marketingTime() {
+        return Duration.ofNanos(CallMetrics.totalNanos(marketing));
+    }
+
+    /**
+     * @return run time not spent waiting on the database or marketing, i.e.
+     *         rule evaluation and bookkeeping. Zero when calls overlapped on
+     *         several threads for longer than the run took.
+     */
+    public Duration evaluationTime() {
+        final Duration rest = elapsed.minus(databaseTime()).minus(marketingTime());
+        return rest.isNegative() ? Duration.ZERO : rest;
+    }
+
+    @Override
+    public String toString() {
+        return "RunSummary{" +
+                "elapsed=" + elapsed +
+                ", databaseTime=" + databaseTime() +
+                ", marketingTime=" + marketingTime() +
+                ", evaluationTime=" + evaluationTime() +
+                ", database=" + database +
+                ", marketing=" + marketing +
+                '}';
+    }
+}
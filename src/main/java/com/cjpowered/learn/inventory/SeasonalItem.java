@@ -1,7 +1,6 @@
 package com.cjpowered.learn.inventory;
 
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -10,16 +9,21 @@ import com.cjpowered.learn.marketing.Season;
 
 public class SeasonalItem implements Item {
 
-	private final Map<Warehouse, Integer> wantOnHand;
 	private final Season season;
 	private final int ammountInABunch;
 	private final Schedule schedule;
+	private final RulePlan plan;
 	
 	public SeasonalItem(final Map<Warehouse, Integer> wantOnHand, final Season season, final Schedule schedule){
-		this.wantOnHand = wantOnHand;
-		this.schedule = schedule;
-		this.ammountInABunch = 1;
-		this.season = season;
+		this(wantOnHand, season, schedule, 1);
+	}
+
+	public SeasonalItem(final Map<Warehouse, Integer> wantOnHand, final Season season, final Schedule schedule, final int ammountInABunch){
+		this(wantOnHand, season, schedule, ammountInABunch, RuleSettings.DEFAULT);
+	}
+
+	public SeasonalItem(final Map<Warehouse, Integer> wantOnHand, final Season season, final Schedule schedule, final int ammountInABunch, final RuleSettings rules){
+		this(WarehouseTargets.of(wantOnHand), season, schedule, ammountInABunch, rules);
 	}
 	
 	@Deprecated
@@ -30,11 +34,39 @@ public class SeasonalItem implements Item {
 	
 	@Deprecated
 	public SeasonalItem(final int wantOnHand, final Season season, final Schedule schedule, final int ammountInABunch){
-		this.wantOnHand = new HashMap<>();
-		this.wantOnHand.put(Warehouse.home(), wantOnHand);
+		this(WarehouseTargets.atHome(wantOnHand), season, schedule, ammountInABunch);
+	}
+
+	/**
+	 * @param wantOnHand
+	 *            targets indexed by {@link Warehouse#ordinal()}, owned by the
+	 *            new item's rules
+	 */
+	SeasonalItem(final int[] wantOnHand, final Season season, final Schedule schedule, final int ammountInABunch){
+		this(wantOnHand, season, schedule, ammountInABunch, RuleSettings.DEFAULT);
+	}
+
+	SeasonalItem(final int[] wantOnHand, final Season season, final Schedule schedule, final int ammountInABunch, final RuleSettings rules){
 		this.season = season;
 		this.schedule = schedule;
 		this.ammountInABunch = ammountInABunch;
+		this.plan = RulePlan.compile(wantOnHand, ammountInABunch, true, rules);
+	}
+
+	int wantOnHand(final Warehouse warehouse){
+		return plan.target(warehouse);
+	}
+
+	int ammountInABunch(){
+		return ammountInABunch;
+	}
+
+	RuleSettings rules(){
+		return plan.settings();
+	}
+
+	Season season(){
+		return season;
 	}
 	
 	@Override
@@ -42,6 +74,16 @@ public class SeasonalItem implements Item {
 		return schedule.canOrderToday(today);
 	}
 
+	@Override
+	public Schedule schedule(){
+		return schedule;
+	}
+
+	@Override
+	public boolean stocks(final Warehouse warehouse){
+		return plan.stocks(warehouse);
+	}
+
 	@Override
 	public Optional<Order> createOrder(final LocalDate when, InventoryDatabase database, MarketingInfo marketingInfo) {
 		return createOrder(when, database, marketingInfo, Warehouse.home());
@@ -49,46 +91,35 @@ public class SeasonalItem implements Item {
 
 	@Override
 	public Optional<Order> createOrder(LocalDate when, InventoryDatabase database, MarketingInfo marketingInfo, Warehouse warehouse) {
-		final int onHand = database.onHand(this, warehouse);
-		final boolean inSeason = season.equals(marketingInfo.season(when));
-		final boolean onSale = marketingInfo.onSale(this, when);
-		final int onOrder = database.onOrder(this, warehouse);
-		final int total = onHand + onOrder;
-		final int toOrder;
-
-		if(!wantOnHand.containsKey(warehouse) || wantOnHand.get(warehouse) == total || wantOnHand.get(warehouse)  == 0){
+		if(!stocks(warehouse)){
 			return Optional.empty();
 		}
-		
-		if(total == 0){
-			final int newAmount;
-			newAmount = (int) Math.ceil(wantOnHand.get(warehouse)*1.1);
-			database.setRequiredOnHand(this, warehouse, newAmount);
-		}
+		return createOrder(when, database.onHand(this, warehouse), database.onOrder(this, warehouse), database, marketingInfo, warehouse);
+	}
 
-		if(inSeason){
-			if(onSale && wantOnHand.get(warehouse) < 20){
-				if( (float)(total)/(float)(wantOnHand.get(warehouse)+20) > 0.80){return Optional.empty();}
-				toOrder = (20+wantOnHand.get(warehouse)) - total;
-			}else{
-				if( (float)(total)/(float)(wantOnHand.get(warehouse)*2) > 0.80){return Optional.empty();}
-				toOrder = (wantOnHand.get(warehouse)*2) - total;
-			}
-		}else{
-			if( (float)(onHand+onOrder)/(float)(wantOnHand.get(warehouse)) > 0.80){return Optional.empty();}
-			toOrder = wantOnHand.get(warehouse) - total;
+	@Override
+	public Optional<Order> createOrder(LocalDate when, final int onHand, final int onOrder, InventoryDatabase database, MarketingInfo marketingInfo, Warehouse warehouse) {
+		final int toOrder = orderQuantity(when, onHand, onOrder, database, marketingInfo, warehouse);
+		return (toOrder == 0) ? Optional.empty() : Optional.of(new Order(this, toOrder, warehouse));
+	}
 
+	@Override
+	public int orderQuantity(final LocalDate when, final int onHand, final int onOrder, final InventoryDatabase database, final MarketingInfo marketingInfo, final Warehouse warehouse) {
+		if(!stocks(warehouse)){
+			return 0;
 		}
-
-		if(ammountInABunch == 1 || toOrder % ammountInABunch == 0){
-			return (toOrder < 1) ? Optional.empty() : Optional.of(new Order(this, toOrder, warehouse));
-		}else{
-			final int numberOfBunches = (int)Math.ceil((float)toOrder / (float)ammountInABunch);
-			if( (numberOfBunches*ammountInABunch) + total > wantOnHand.get(warehouse) ){
-				return (numberOfBunches == 1) ? Optional.empty() : Optional.of(new Order(this, (numberOfBunches-1)*ammountInABunch, warehouse ));
-			}
-			return (toOrder < 1) ? Optional.empty() : Optional.of(new Order(this, numberOfBunches*ammountInABunch, warehouse));
+		if(onHand + onOrder == 0){
+			database.setRequiredOnHand(this, warehouse, plan.raisedTarget(warehouse));
 		}
+
+		final boolean inSeason = season.equals(marketingInfo.season(when));
+		return plan.quantity(warehouse, onHand, onOrder, marketingInfo.onSale(this, when), inSeason);
+	}
+
+	@Override
+	public Outcome explain(final LocalDate when, final int onHand, final int onOrder, final MarketingInfo marketingInfo, final Warehouse warehouse) {
+		final boolean inSeason = season.equals(marketingInfo.season(when));
+		return plan.outcome(warehouse, onHand, onOrder, marketingInfo.onSale(this, when), inSeason);
 	}
 
 }
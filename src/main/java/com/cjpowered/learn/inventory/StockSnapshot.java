@@ -0,0 +1,71 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.List;
+
+/**
+ * On-hand and on-order counts for a set of items across every
+ * {@link Warehouse}, fetched in bulk by
+ * {@link InventoryDatabase#stockSnapshot(List)}.
+ *
+ * Counts are stored row-major: the row of an item is its position in the list
+ * the snapshot was created for, and the column is {@link Warehouse#ordinal()}.
+ * A snapshot created for {@link ItemRegistry#items()} therefore has rows
+ * equal to item IDs, and callers that know them can skip looking items up.
+ */
+public final class StockSnapshot {
+
+    private static final int WAREHOUSES = Warehouse.values().length;
+
+    private final ItemRegistry rows;
+    private final int[] onHand;
+    private final int[] onOrder;
+
+    /**
+     * @param items
+     *            items covered by the snapshot, in row order
+     * @param onHand
+     *            on-hand counts, {@code items.size() * Warehouse.values().length}
+     *            long
+     * @param onOrder
+     *            on-order counts, laid out like {@code onHand}
+     */
+    public StockSnapshot(final List<Item> items, final int[] onHand, final int[] onOrder) {
+        if (onHand.length != items.size() * WAREHOUSES || onOrder.length != onHand.length)
+            throw new IllegalArgumentException("expected " + items.size() * WAREHOUSES + " counts per column");
+        this.rows = new ItemRegistry(items);
+        this.onHand = onHand;
+        this.onOrder = onOrder;
+    }
+
+    /**
+     * Index of a count in the arrays passed to
+     * {@link #StockSnapshot(List, int[], int[])}.
+     */
+    public static int index(final int row, final Warehouse warehouse) {
+        return row * WAREHOUSES + warehouse.ordinal();
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the item is not in the snapshot
+     */
+    public int onHand(final Item item, final Warehouse warehouse) {
+        return onHand(rows.id(item), warehouse);
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the item is not in the snapshot
+     */
+    public int onOrder(final Item item, final Warehouse warehouse) {
+        return onOrder(rows.id(item), warehouse);
+    }
+
+    public int onHand(final int row, final Warehouse warehouse) {
+        return onHand[index(row, warehouse)];
+    }
+
+    public int onOrder(final int row, final Warehouse warehouse) {
+        return onOrder[index(row, warehouse)];
+    }
+}
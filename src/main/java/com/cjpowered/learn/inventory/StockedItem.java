@@ -1,7 +1,6 @@
 package com.cjpowered.learn.inventory;
 
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.Map;
 
 import java.util.Optional;
@@ -11,9 +10,9 @@ import com.cjpowered.learn.marketing.MarketingInfo;
 public class StockedItem implements Item {
 	
 
-	private final Map<Warehouse, Integer> wantOnHand;
 	private final int ammountInABunch;
 	private final Schedule schedule;
+	private final RulePlan plan;
 
 	@Deprecated
 	public StockedItem(final int wantOnHand, final Schedule schedule){
@@ -21,17 +20,47 @@ public class StockedItem implements Item {
 	}
 
 	public StockedItem(final Map<Warehouse, Integer> wantOnHand, final Schedule schedule){
-		this.wantOnHand = wantOnHand;
-		this.schedule = schedule;
-		this.ammountInABunch = 1;
+		this(wantOnHand, schedule, 1);
+	}
+
+	public StockedItem(final Map<Warehouse, Integer> wantOnHand, final Schedule schedule, final int ammountInABunch){
+		this(wantOnHand, schedule, ammountInABunch, RuleSettings.DEFAULT);
+	}
+
+	public StockedItem(final Map<Warehouse, Integer> wantOnHand, final Schedule schedule, final int ammountInABunch, final RuleSettings rules){
+		this(WarehouseTargets.of(wantOnHand), schedule, ammountInABunch, rules);
 	}
 
 	@Deprecated
 	public StockedItem(final int wantOnHand,final Schedule schedule, final int ammountInABunch){
-		this.wantOnHand = new HashMap<>();
-		this.wantOnHand.put(Warehouse.home(), wantOnHand);
+		this(WarehouseTargets.atHome(wantOnHand), schedule, ammountInABunch);
+	}
+
+	/**
+	 * @param wantOnHand
+	 *            targets indexed by {@link Warehouse#ordinal()}, owned by the
+	 *            new item's rules
+	 */
+	StockedItem(final int[] wantOnHand, final Schedule schedule, final int ammountInABunch){
+		this(wantOnHand, schedule, ammountInABunch, RuleSettings.DEFAULT);
+	}
+
+	StockedItem(final int[] wantOnHand, final Schedule schedule, final int ammountInABunch, final RuleSettings rules){
 		this.schedule = schedule;
 		this.ammountInABunch = ammountInABunch;
+		this.plan = RulePlan.compile(wantOnHand, ammountInABunch, false, rules);
+	}
+
+	int wantOnHand(final Warehouse warehouse){
+		return plan.target(warehouse);
+	}
+
+	int ammountInABunch(){
+		return ammountInABunch;
+	}
+
+	RuleSettings rules(){
+		return plan.settings();
 	}
 	
 	@Override
@@ -39,6 +68,16 @@ public class StockedItem implements Item {
 		return schedule.canOrderToday(today);
 	}
 
+	@Override
+	public Schedule schedule(){
+		return schedule;
+	}
+
+	@Override
+	public boolean stocks(final Warehouse warehouse){
+		return plan.stocks(warehouse);
+	}
+
 	@Override
 	public Optional<Order> createOrder(final LocalDate when, final InventoryDatabase database, final MarketingInfo marketingInfo){
 		return createOrder(when, database, marketingInfo, Warehouse.home());
@@ -46,40 +85,32 @@ public class StockedItem implements Item {
 
 	@Override
 	public Optional<Order> createOrder(final LocalDate when, final InventoryDatabase database, final MarketingInfo marketingInfo, Warehouse warehouse){
-		final int onOrder = database.onOrder(this, warehouse);
-		final int onHand = database.onHand(this, warehouse);
-		final int total = onHand + onOrder;
-		final boolean onSale = marketingInfo.onSale(this, when);
-		final int toOrder;
-
-		
-		if(!wantOnHand.containsKey(warehouse) || wantOnHand.get(warehouse) == total || wantOnHand.get(warehouse)  == 0){
+		if(!stocks(warehouse)){
 			return Optional.empty();
 		}
-		
-		if(total == 0){
-			final int newAmount;
-			newAmount = (int)Math.ceil(wantOnHand.get(warehouse)*1.1);
+		return createOrder(when, database.onHand(this, warehouse), database.onOrder(this, warehouse), database, marketingInfo, warehouse);
+	}
 
-			database.setRequiredOnHand(this, warehouse, newAmount);
-		}
+	@Override
+	public Optional<Order> createOrder(final LocalDate when, final int onHand, final int onOrder, final InventoryDatabase database, final MarketingInfo marketingInfo, Warehouse warehouse){
+		final int toOrder = orderQuantity(when, onHand, onOrder, database, marketingInfo, warehouse);
+		return (toOrder == 0) ? Optional.empty() : Optional.of(new Order(this, toOrder, warehouse));
+	}
 
-		if(onSale){
-			if( (float)(total)/(float)(wantOnHand.get(warehouse)+20) > 0.80){return Optional.empty();}
-			toOrder = wantOnHand.get(warehouse) + 20 - total;
-		}else{
-			if( (float)(total)/(float)(wantOnHand.get(warehouse)) > 0.80){return Optional.empty();}
-			 toOrder = wantOnHand.get(warehouse) - total;
+	@Override
+	public int orderQuantity(final LocalDate when, final int onHand, final int onOrder, final InventoryDatabase database, final MarketingInfo marketingInfo, final Warehouse warehouse){
+		if(!stocks(warehouse)){
+			return 0;
 		}
-
-		if(ammountInABunch == 1 || toOrder % ammountInABunch == 0){
-			return (toOrder < 1) ? Optional.empty() : Optional.of(new Order(this, toOrder, warehouse));
-		}else{
-			final int numberOfBunches = (int)Math.ceil((float)toOrder / (float)ammountInABunch);
-			if( (numberOfBunches*ammountInABunch) + total > wantOnHand.get(warehouse) ){
-				return (numberOfBunches == 1) ? Optional.empty() : Optional.of(new Order(this, (numberOfBunches-1)*ammountInABunch , warehouse));
-			}
-			return (toOrder < 1) ? Optional.empty() : Optional.of(new Order(this, numberOfBunches*ammountInABunch, warehouse));
+		if(onHand + onOrder == 0){
+			database.setRequiredOnHand(this, warehouse, plan.raisedTarget(warehouse));
 		}
+
+		return plan.quantity(warehouse, onHand, onOrder, marketingInfo.onSale(this, when), false);
+	}
+
+	@Override
+	public Outcome explain(final LocalDate when, final int onHand, final int onOrder, final MarketingInfo marketingInfo, final Warehouse warehouse){
+		return plan.outcome(warehouse, onHand, onOrder, marketingInfo.onSale(this, when), false);
 	}
 }
@@ -0,0 +1,86 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stream helpers for managers that decide orders as their stream is consumed.
+ */
+public final class Streams {
+
+    private Streams() {
+    }
+
+    /**
+     * The elements of {@code stream}, running {@code action} once the last
+     * of them has been passed on or once the returned stream is closed,
+     * whichever comes first, and never again. Closing the returned stream
+     * closes {@code stream} before running {@code action}.
+     *
+     * The returned stream is sequential.
+     */
+    public static <T> Stream<T> onExhaustion(final Stream<T> stream, final Runnable action) {
+        final AtomicBoolean done = new AtomicBoolean();
+        final Runnable once = () -> {
+            if (done.compareAndSet(false, true))
+                action.run();
+        };
+        return StreamSupport.stream(new Exhausting<>(stream.spliterator(), once), false).onClose(() -> {
+            try {
+                stream.close();
+            } finally {
+                once.run();
+            }
+        });
+    }
+
+    private static final class Exhausting<T> implements Spliterator<T> {
+
+        private final Spliterator<T> source;
+        private final Runnable action;
+
+        Exhausting(final Spliterator<T> source, final Runnable action) {
+            this.source = source;
+            this.action = action;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super T> consumer) {
+            if (source.tryAdvance(consumer))
+                return true;
+            action.run();
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super T> consumer) {
+            source.forEachRemaining(consumer);
+            action.run();
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics();
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return source.getComparator();
+        }
+    }
+
+}
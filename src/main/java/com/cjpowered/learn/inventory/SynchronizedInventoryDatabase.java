@@ -0,0 +1,85 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Makes an {@link InventoryDatabase} that is not thread-safe usable from
+ * several threads by serializing every call on a single lock.
+ */
+public final class SynchronizedInventoryDatabase implements InventoryDatabase {
+
+    private final InventoryDatabase database;
+    private final Object lock = new Object();
+
+    public SynchronizedInventoryDatabase(final InventoryDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    @Deprecated
+    public int onHand(final Item item) {
+        synchronized (lock) {
+            return database.onHand(item);
+        }
+    }
+
+    @Override
+    public List<Item> stockItems() {
+        synchronized (lock) {
+            return database.stockItems();
+        }
+    }
+
+    @Override
+    @Deprecated
+    public int onOrder(final Item item) {
+        synchronized (lock) {
+            return database.onOrder(item);
+        }
+    }
+
+    @Override
+    public int onOrder(final Item item, final Warehouse warehouse) {
+        synchronized (lock) {
+            return database.onOrder(item, warehouse);
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void setRequiredOnHand(final Item item, final int newAmount) {
+        synchronized (lock) {
+            database.setRequiredOnHand(item, newAmount);
+        }
+    }
+
+    @Override
+    public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+        synchronized (lock) {
+            database.setRequiredOnHand(item, warehouse, newAmount);
+        }
+    }
+
+    @Override
+    public void setRequiredOnHand(final Collection<RequiredOnHand> changes) {
+        synchronized (lock) {
+            database.setRequiredOnHand(changes);
+        }
+    }
+
+    @Override
+    public int onHand(final Item item, final Warehouse warehouse) {
+        synchronized (lock) {
+            return database.onHand(item, warehouse);
+        }
+    }
+
+    @Override
+    public StockSnapshot stockSnapshot(final List<Item> items) {
+        synchronized (lock) {
+            return database.stockSnapshot(items);
+        }
+    }
+
+}
@@ -0,0 +1,426 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stock counts kept in memory as versions that never change once published,
+ * so a run reading a {@link #snapshot()} sees every item as of the same
+ * moment, however long it takes and whatever is written meanwhile.
+ *
+ * Counts live in a trie of 64-way nodes over item and warehouse pairs. A
+ * write copies the leaf holding its pair and the nodes above it, about 2 KB
+ * for millions of items, and publishes the new root; untouched nodes are
+ * shared with earlier versions. Writers take a lock among themselves;
+ * readers never do.
+ *
+ * The catalog and stock levels belong to another database, and
+ * {@link #setRequiredOnHand} goes through to it. Shipments and sales are
+ * recorded here with {@link #set} and {@link #adjust}. {@link #snapshot()}
+ * and {@link #stockItems()} list the catalog again and compare the items
+ * with the last listing, by identity and in order. When they differ, the
+ * trie is rebuilt for the new list:
+ * <ul>
+ * <li>an item listed before keeps its counts,</li>
+ * <li>an item with the same {@link InventoryDatabase#rowKey} as one that is
+ * gone keeps that item's counts, as after a database rebuilds an item whose
+ * stock level changed,</li>
+ * <li>any other item starts from the catalog's stock snapshot.</li>
+ * </ul>
+ * An item never takes the counts of another entry, whatever its position.
+ */
+public final class VersionedInventoryDatabase implements InventoryDatabase {
+
+    private static final int BITS = 6;
+    private static final int FANOUT = 1 << BITS;
+    private static final int MASK = FANOUT - 1;
+    private static final int WAREHOUSES = Warehouse.values().length;
+
+    private final InventoryDatabase catalog;
+
+    /**
+     * latest version; replaced under this object's lock
+     */
+    private volatile Version version;
+
+    public VersionedInventoryDatabase(final InventoryDatabase catalog) {
+        this.catalog = catalog;
+        final List<Item> items = catalog.stockItems();
+        final StockSnapshot stock = catalog.stockSnapshot(items);
+        final int[] onHand = new int[items.size() * WAREHOUSES];
+        final int[] onOrder = new int[onHand.length];
+        for (int pair = 0; pair < onHand.length; pair++) {
+            final Warehouse warehouse = Warehouse.values()[pair % WAREHOUSES];
+            onHand[pair] = stock.onHand(pair / WAREHOUSES, warehouse);
+            onOrder[pair] = stock.onOrder(pair / WAREHOUSES, warehouse);
+        }
+        this.version = Version.of(new ItemRegistry(items), onHand, onOrder);
+    }
+
+    /**
+     * Counts as of now, for the items the catalog lists now. Later writes to
+     * this database do not show in the view; stock level changes made
+     * through it go to the catalog database.
+     */
+    @Override
+    public InventoryDatabase snapshot() {
+        return new Snapshot(listed());
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the item is not in the catalog
+     */
+    public synchronized void set(final Item item, final Warehouse warehouse, final int onHand, final int onOrder) {
+        final Version current = holding(item);
+        version = current.with(current.pair(item, warehouse), onHand, onOrder);
+    }
+
+    /**
+     * Add to the counts, e.g. {@code (units, -units)} when a shipment
+     * arrives or {@code (-units, 0)} for a sale.
+     *
+     * @throws IllegalArgumentException
+     *             if the item is not in the catalog
+     */
+    public synchronized void adjust(final Item item, final Warehouse warehouse, final int onHandChange, final int onOrderChange) {
+        final Version current = holding(item);
+        final int pair = current.pair(item, warehouse);
+        final int[] leaf = current.leaf(pair);
+        final int at = 2 * (pair & MASK);
+        version = current.with(pair, leaf[at] + onHandChange, leaf[at + 1] + onOrderChange);
+    }
+
+    @Override
+    public List<Item> stockItems() {
+        return listed().items.items();
+    }
+
+    @Override
+    public int onHand(final Item item, final Warehouse warehouse) {
+        return holding(item).onHand(item, warehouse);
+    }
+
+    @Override
+    public int onOrder(final Item item, final Warehouse warehouse) {
+        return holding(item).onOrder(item, warehouse);
+    }
+
+    @Override
+    @Deprecated
+    public int onHand(final Item item) {
+        return onHand(item, Warehouse.home());
+    }
+
+    @Override
+    @Deprecated
+    public int onOrder(final Item item) {
+        return onOrder(item, Warehouse.home());
+    }
+
+    @Override
+    public StockSnapshot stockSnapshot(final List<Item> items) {
+        Version current = version;
+        for (final Item item : items) {
+            if (!current.items.contains(item)) {
+                current = listed();
+                break;
+            }
+        }
+        return current.stockSnapshot(items);
+    }
+
+    @Override
+    public Object rowKey(final Item item) {
+        return catalog.rowKey(item);
+    }
+
+    @Override
+    public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+        catalog.setRequiredOnHand(item, warehouse, newAmount);
+    }
+
+    @Override
+    public void setRequiredOnHand(final Collection<RequiredOnHand> changes) {
+        catalog.setRequiredOnHand(changes);
+    }
+
+    @Override
+    @Deprecated
+    public void setRequiredOnHand(final Item item, final int newAmount) {
+        catalog.setRequiredOnHand(item, newAmount);
+    }
+
+    /**
+     * @return the latest version, or one for the catalog as listed now if
+     *         the item is not in it
+     */
+    private Version holding(final Item item) {
+        final Version current = version;
+        return current.items.contains(item) ? current : listed();
+    }
+
+    /**
+     * @return a version for the items the catalog lists now, publishing a
+     *         remapped one if they changed
+     */
+    private Version listed() {
+        final List<Item> items = catalog.stockItems();
+        final Version current = version;
+        if (current.lists(items))
+            return current;
+        synchronized (this) {
+            final Version latest = version;
+            if (latest.lists(items))
+                return latest;
+            version = latest.remap(items, catalog);
+            return version;
+        }
+    }
+
+    /**
+     * One published state: the items as listed and a trie of their counts.
+     */
+    private static final class Version {
+
+        final ItemRegistry items;
+
+        /**
+         * shift of the root's index bits; 0 when the root is a leaf
+         */
+        private final int rootShift;
+
+        /**
+         * leaf: {@code int[2 * FANOUT]} of on-hand and on-order counts by
+         * pair; node: {@code Object[FANOUT]} of children
+         */
+        private final Object root;
+
+        private Version(final ItemRegistry items, final int rootShift, final Object root) {
+            this.items = items;
+            this.rootShift = rootShift;
+            this.root = root;
+        }
+
+        /**
+         * @param onHand
+         *            counts by pair, item ID times warehouses plus ordinal
+         */
+        static Version of(final ItemRegistry items, final int[] onHand, final int[] onOrder) {
+            final int pairs = onHand.length;
+            List<Object> level = new ArrayList<>();
+            for (int first = 0; first < Math.max(pairs, 1); first += FANOUT) {
+                final int[] leaf = new int[2 * FANOUT];
+                for (int pair = first; pair < Math.min(first + FANOUT, pairs); pair++) {
+                    leaf[2 * (pair & MASK)] = onHand[pair];
+                    leaf[2 * (pair & MASK) + 1] = onOrder[pair];
+                }
+                level.add(leaf);
+            }
+            int shift = 0;
+            while (level.size() > 1) {
+                final List<Object> parents = new ArrayList<>();
+                for (int first = 0; first < level.size(); first += FANOUT) {
+                    final Object[] node = new Object[FANOUT];
+                    for (int child = first; child < Math.min(first + FANOUT, level.size()); child++) {
+                        node[child - first] = level.get(child);
+                    }
+                    parents.add(node);
+                }
+                level = parents;
+                shift += BITS;
+            }
+            return new Version(items, shift, level.get(0));
+        }
+
+        /**
+         * @return whether {@code listed} holds this version's items, in
+         *         order
+         */
+        boolean lists(final List<Item> listed) {
+            if (listed.size() != items.size())
+                return false;
+            for (int id = 0; id < listed.size(); id++) {
+                if (listed.get(id) != items.item(id))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return a version for {@code listed}, with counts carried over as
+         *         the class describes
+         */
+        Version remap(final List<Item> listed, final InventoryDatabase catalog) {
+            final Set<Item> stillListed = Collections.newSetFromMap(new IdentityHashMap<>(listed.size()));
+            stillListed.addAll(listed);
+            final Map<Object, Integer> gone = new HashMap<>();
+            for (int id = 0; id < items.size(); id++) {
+                if (!stillListed.contains(items.item(id)))
+                    gone.put(catalog.rowKey(items.item(id)), id);
+            }
+            final int[] onHand = new int[listed.size() * WAREHOUSES];
+            final int[] onOrder = new int[onHand.length];
+            final List<Item> added = new ArrayList<>();
+            final List<Integer> addedIds = new ArrayList<>();
+            for (int id = 0; id < listed.size(); id++) {
+                final Item item = listed.get(id);
+                final int from = items.contains(item) ? items.id(item)
+                        : gone.isEmpty() ? -1 : gone.getOrDefault(catalog.rowKey(item), -1);
+                if (from < 0) {
+                    added.add(item);
+                    addedIds.add(id);
+                    continue;
+                }
+                for (int w = 0; w < WAREHOUSES; w++) {
+                    final int pair = from * WAREHOUSES + w;
+                    final int at = 2 * (pair & MASK);
+                    final int[] leaf = leaf(pair);
+                    onHand[id * WAREHOUSES + w] = leaf[at];
+                    onOrder[id * WAREHOUSES + w] = leaf[at + 1];
+                }
+            }
+            if (!added.isEmpty()) {
+                final StockSnapshot stock = catalog.stockSnapshot(added);
+                for (int row = 0; row < added.size(); row++) {
+                    for (final Warehouse warehouse : Warehouse.values()) {
+                        onHand[StockSnapshot.index(addedIds.get(row), warehouse)] = stock.onHand(row, warehouse);
+                        onOrder[StockSnapshot.index(addedIds.get(row), warehouse)] = stock.onOrder(row, warehouse);
+                    }
+                }
+            }
+            return of(new ItemRegistry(listed), onHand, onOrder);
+        }
+
+        int pair(final Item item, final Warehouse warehouse) {
+            return items.id(item) * WAREHOUSES + warehouse.ordinal();
+        }
+
+        int[] leaf(final int pair) {
+            Object node = root;
+            for (int shift = rootShift; shift > 0; shift -= BITS) {
+                node = ((Object[]) node)[pair >>> shift & MASK];
+            }
+            return (int[]) node;
+        }
+
+        int onHand(final Item item, final Warehouse warehouse) {
+            final int pair = pair(item, warehouse);
+            return leaf(pair)[2 * (pair & MASK)];
+        }
+
+        int onOrder(final Item item, final Warehouse warehouse) {
+            final int pair = pair(item, warehouse);
+            return leaf(pair)[2 * (pair & MASK) + 1];
+        }
+
+        StockSnapshot stockSnapshot(final List<Item> items) {
+            final int[] onHand = new int[items.size() * WAREHOUSES];
+            final int[] onOrder = new int[onHand.length];
+            for (int row = 0; row < items.size(); row++) {
+                final int first = this.items.id(items.get(row)) * WAREHOUSES;
+                for (int w = 0; w < WAREHOUSES; w++) {
+                    final int[] leaf = leaf(first + w);
+                    final int at = 2 * (first + w & MASK);
+                    onHand[row * WAREHOUSES + w] = leaf[at];
+                    onOrder[row * WAREHOUSES + w] = leaf[at + 1];
+                }
+            }
+            return new StockSnapshot(items, onHand, onOrder);
+        }
+
+        Version with(final int pair, final int onHand, final int onOrder) {
+            return new Version(items, rootShift, with(root, rootShift, pair, onHand, onOrder));
+        }
+
+        private static Object with(final Object node, final int shift, final int pair, final int onHand, final int onOrder) {
+            if (shift == 0) {
+                final int[] leaf = ((int[]) node).clone();
+                leaf[2 * (pair & MASK)] = onHand;
+                leaf[2 * (pair & MASK) + 1] = onOrder;
+                return leaf;
+            }
+            final Object[] copy = ((Object[]) node).clone();
+            final int child = pair >>> shift & MASK;
+            copy[child] = with(copy[child], shift - BITS, pair, onHand, onOrder);
+            return copy;
+        }
+    }
+
+    /**
+     * Reads one version; writes go to the catalog database.
+     */
+    private final class Snapshot implements InventoryDatabase {
+
+        private final Version version;
+
+        Snapshot(final Version version) {
+            this.version = version;
+        }
+
+        @Override
+        public List<Item> stockItems() {
+            return version.items.items();
+        }
+
+        @Override
+        public int onHand(final Item item, final Warehouse warehouse) {
+            return version.onHand(item, warehouse);
+        }
+
+        @Override
+        public int onOrder(final Item item, final Warehouse warehouse) {
+            return version.onOrder(item, warehouse);
+        }
+
+        @Override
+        @Deprecated
+        public int onHand(final Item item) {
+            return onHand(item, Warehouse.home());
+        }
+
+        @Override
+        @Deprecated
+        public int onOrder(final Item item) {
+            return onOrder(item, Warehouse.home());
+        }
+
+        @Override
+        public StockSnapshot stockSnapshot(final List<Item> items) {
+            return version.stockSnapshot(items);
+        }
+
+        @Override
+        public InventoryDatabase snapshot() {
+            return this;
+        }
+
+        @Override
+        public Object rowKey(final Item item) {
+            return catalog.rowKey(item);
+        }
+
+        @Override
+        public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+            catalog.setRequiredOnHand(item, warehouse, newAmount);
+        }
+
+        @Override
+        public void setRequiredOnHand(final Collection<RequiredOnHand> changes) {
+            catalog.setRequiredOnHand(changes);
+        }
+
+        @Override
+        @Deprecated
+        public void setRequiredOnHand(final Item item, final int newAmount) {
+            catalog.setRequiredOnHand(item, newAmount);
+        }
+    }
+
+}
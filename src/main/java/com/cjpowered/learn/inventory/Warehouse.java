@@ -4,7 +4,11 @@ public enum Warehouse {
 
     Poughkeepsie, Ashford, Zzyzx, Peculiar;
 
-    static Warehouse home() {
+    /**
+     * Warehouse the deprecated single-warehouse methods of
+     * {@link InventoryDatabase} and {@link Item} refer to.
+     */
+    public static Warehouse home() {
         return Poughkeepsie;
     }
 }
@@ -0,0 +1,40 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Per-warehouse stock targets kept as an {@code int[]} indexed by
+ * {@link Warehouse#ordinal()}, so items need no map or boxed values.
+ */
+final class WarehouseTargets {
+
+    /**
+     * target of a warehouse that does not stock the item
+     */
+    static final int NOT_STOCKED = ReorderRules.NOT_STOCKED;
+
+    private WarehouseTargets() {
+    }
+
+    static int[] of(final Map<Warehouse, Integer> wantOnHand) {
+        final int[] targets = none();
+        for (final Map.Entry<Warehouse, Integer> entry : wantOnHand.entrySet()) {
+            if (entry.getValue() != null)
+                targets[entry.getKey().ordinal()] = entry.getValue();
+        }
+        return targets;
+    }
+
+    static int[] atHome(final int wantOnHand) {
+        final int[] targets = none();
+        targets[Warehouse.home().ordinal()] = wantOnHand;
+        return targets;
+    }
+
+    private static int[] none() {
+        final int[] targets = new int[Warehouse.values().length];
+        Arrays.fill(targets, NOT_STOCKED);
+        return targets;
+    }
+}
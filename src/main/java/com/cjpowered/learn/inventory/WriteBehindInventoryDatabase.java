@@ -0,0 +1,183 @@
+package com.cjpowered.learn.inventory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Buffers {@link #setRequiredOnHand(Item, Warehouse, int)} changes in front
+ * of another {@link InventoryDatabase} and writes them in batches through
+ * {@link InventoryDatabase#setRequiredOnHand(Collection)}. Reads pass straight
+ * through.
+ *
+ * Repeated changes to the same item and warehouse are merged; only the latest
+ * amount is written. Buffered changes are written:
+ * <ul>
+ * <li>when {@code maxPending} distinct item and warehouse pairs are
+ * buffered,</li>
+ * <li>when a change arrives more than {@code maxDelay} after the oldest
+ * buffered one (there is no background thread, so an idle buffer is not
+ * written until the next change or flush),</li>
+ * <li>before {@link #stockItems()}, so the items it returns reflect every
+ * change made through this instance,</li>
+ * <li>on {@link #flush()} and {@link #close()}.</li>
+ * </ul>
+ *
+ * Changes stay buffered until the wrapped database accepts a batch. If a
+ * batch fails when a threshold is reached, the failure is held back so the
+ * change that triggered it still succeeds, and thresholds stop flushing until
+ * the next explicit {@link #flush()}. That flush retries everything buffered
+ * and throws if the wrapped database still fails. Setting a stock level is
+ * idempotent, so a retried batch may safely repeat changes that were applied
+ * before the failure.
+ *
+ * All methods are synchronized, so an instance can be shared between threads.
+ */
+public final class WriteBehindInventoryDatabase implements InventoryDatabase, AutoCloseable {
+
+    private final InventoryDatabase database;
+    private final int maxPending;
+    private final long maxDelayNanos;
+    private final Map<Key, RequiredOnHand> pending = new LinkedHashMap<>();
+    private long oldestPendingNanos;
+    private boolean failed;
+
+    public WriteBehindInventoryDatabase(final InventoryDatabase database, final int maxPending, final Duration maxDelay) {
+        if (maxPending < 1)
+            throw new IllegalArgumentException("maxPending must be positive: " + maxPending);
+        this.database = database;
+        this.maxPending = maxPending;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    @Override
+    public synchronized void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+        if (pending.isEmpty())
+            oldestPendingNanos = System.nanoTime();
+        pending.put(new Key(item, warehouse), new RequiredOnHand(item, warehouse, newAmount));
+        if (!failed && (pending.size() >= maxPending || System.nanoTime() - oldestPendingNanos > maxDelayNanos)) {
+            try {
+                write();
+            } catch (final RuntimeException e) {
+                failed = true;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setRequiredOnHand(final Collection<RequiredOnHand> changes) {
+        for (final RequiredOnHand change : changes) {
+            setRequiredOnHand(change.item, change.warehouse, change.amount);
+        }
+    }
+
+    /**
+     * Write every buffered change now.
+     *
+     * @throws RuntimeException
+     *             whatever the wrapped database threw; the changes stay
+     *             buffered
+     */
+    public synchronized void flush() {
+        write();
+        failed = false;
+    }
+
+    /**
+     * Same as {@link #flush()}.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * @return number of item and warehouse pairs with a change not yet
+     *         written
+     */
+    public synchronized int pending() {
+        return pending.size();
+    }
+
+    private void write() {
+        if (pending.isEmpty())
+            return;
+        final List<RequiredOnHand> batch = new ArrayList<>(pending.values());
+        database.setRequiredOnHand(batch);
+        pending.clear();
+    }
+
+    @Override
+    public synchronized List<Item> stockItems() {
+        flush();
+        return database.stockItems();
+    }
+
+    /**
+     * Written through after the buffered changes, which keeps the order of
+     * changes to the home warehouse.
+     */
+    @Override
+    @Deprecated
+    public synchronized void setRequiredOnHand(final Item item, final int newAmount) {
+        flush();
+        database.setRequiredOnHand(item, newAmount);
+    }
+
+    @Override
+    @Deprecated
+    public int onHand(final Item item) {
+        return database.onHand(item);
+    }
+
+    @Override
+    @Deprecated
+    public int onOrder(final Item item) {
+        return database.onOrder(item);
+    }
+
+    @Override
+    public int onOrder(final Item item, final Warehouse warehouse) {
+        return database.onOrder(item, warehouse);
+    }
+
+    @Override
+    public int onHand(final Item item, final Warehouse warehouse) {
+        return database.onHand(item, warehouse);
+    }
+
+    @Override
+    public StockSnapshot stockSnapshot(final List<Item> items) {
+        return database.stockSnapshot(items);
+    }
+
+    private static final class Key {
+
+        private final Item item;
+        private final Warehouse warehouse;
+
+        Key(final Item item, final Warehouse warehouse) {
+            this.item = item;
+            this.warehouse = warehouse;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj)
+                return true;
+            else if (obj instanceof Key)
+                return this.item.equals(((Key) obj).item) && this.warehouse == ((Key) obj).warehouse;
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.item, this.warehouse);
+        }
+    }
+
+}
@@ -1,39 +1,367 @@
 package com.cjpowered.learn.inventory.ace;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import com.cjpowered.learn.inventory.*;
+import com.cjpowered.learn.marketing.CachingMarketingInfo;
 import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.SynchronizedMarketingInfo;
 
 public final class AceInventoryManager implements InventoryManager {
 
 	private final InventoryDatabase database;
 	private final MarketingInfo marketingInfo;
-	
+	private final RunMode mode;
+	private final Optional<DecisionLog> decisions;
+
+	static final int MAX_PENDING_WRITES = 1000;
+	static final Duration MAX_WRITE_DELAY = Duration.ofSeconds(5);
+
 	public AceInventoryManager(final InventoryDatabase database, final MarketingInfo marketingInfo){
+		this(database, marketingInfo, new Sequential(), Optional.empty());
+	}
+
+	/**
+	 * Evaluate items in parallel on {@code pool}. The orders returned are the
+	 * same, and in the same order, as those of the sequential manager.
+	 *
+	 * Stock, sale status and the season are read on the calling thread, and
+	 * the pool's threads write stock level changes through a synchronized
+	 * buffer, so the items in this package never call {@code database} or
+	 * {@code marketingInfo} concurrently. Other {@link Item} implementations
+	 * that make further calls need thread-safe collaborators; wrap those that
+	 * are not in {@link SynchronizedInventoryDatabase} and
+	 * {@link SynchronizedMarketingInfo}.
+	 */
+	public AceInventoryManager(final InventoryDatabase database, final MarketingInfo marketingInfo, final ForkJoinPool pool){
+		this(database, marketingInfo, new Parallel(pool), Optional.empty());
+	}
+
+	/**
+	 * Evaluate each item and warehouse pair as its own task on
+	 * {@code executor}, reading its stock with separate database calls rather
+	 * than one bulk read. Suits a database whose calls are slow but can
+	 * overlap; at most {@code maxDatabaseCalls} reads are outstanding at once.
+	 * The orders returned are the same, and in the same order, as those of the
+	 * sequential manager.
+	 *
+	 * {@code database} is read concurrently from the executor's threads and
+	 * must be thread-safe. Stock level changes go through a synchronized
+	 * buffer and marketing answers are read up front, as in the parallel mode.
+	 */
+	public AceInventoryManager(final InventoryDatabase database, final MarketingInfo marketingInfo, final Executor executor, final int maxDatabaseCalls){
+		this(database, marketingInfo, new PerPair(executor, maxDatabaseCalls), Optional.empty());
+	}
+
+	private AceInventoryManager(final InventoryDatabase database, final MarketingInfo marketingInfo, final RunMode mode, final Optional<DecisionLog> decisions){
 		this.database = database;
 		this.marketingInfo = marketingInfo;
+		this.mode = mode;
+		this.decisions = decisions;
+	}
+
+	/**
+	 * The same manager, also recording to {@code log} the {@link Outcome} of
+	 * every item and warehouse pair of each run, including those not
+	 * stocked or off schedule.
+	 */
+	public AceInventoryManager recordingDecisions(final DecisionLog log){
+		return new AceInventoryManager(database, marketingInfo, mode, Optional.of(log));
 	}
-	
+
+	/**
+	 * Like {@link #AceInventoryManager(InventoryDatabase, MarketingInfo, Executor, int)}
+	 * with a new virtual thread for every pair, so a database-bound run can
+	 * keep {@code maxDatabaseCalls} reads waiting without a platform thread
+	 * each.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             when not running on Java 21 or later
+	 */
+	public static AceInventoryManager withVirtualThreads(final InventoryDatabase database, final MarketingInfo marketingInfo, final int maxDatabaseCalls){
+		if(!VirtualThreads.available()){
+			throw new UnsupportedOperationException("virtual threads need Java 21 or later, running " + System.getProperty("java.version"));
+		}
+		return new AceInventoryManager(database, marketingInfo, new OnVirtualThreads(maxDatabaseCalls), Optional.empty());
+	}
+
+	/**
+	 * In the parallel and per-pair modes every item is evaluated before the
+	 * stream is returned; only the sequential manager decides orders as the
+	 * stream is consumed, and it asks marketing whether an item is on sale
+	 * when it reaches the item rather than for the whole catalog up front.
+	 * It still lists the catalog and reads the stock of every orderable item
+	 * in one call before its first order, so its memory grows with the
+	 * catalog; what it saves is holding the list of orders.
+	 *
+	 * Every run reads the items and their stock from one
+	 * {@link InventoryDatabase#snapshot()}. For a database that isolates
+	 * snapshots, such as {@link VersionedInventoryDatabase}, shipments
+	 * recorded while a run is going cannot mix old and new counts in its
+	 * orders. The default snapshot is the database itself, which isolates
+	 * nothing; runs on it see writes as they land.
+	 *
+	 * Stock level changes made while deciding are buffered in a
+	 * {@link WriteBehindInventoryDatabase} and written in batches. The last
+	 * batch is written when the stream is fully consumed or closed; a stream
+	 * abandoned part way without being closed may leave changes unwritten.
+	 */
+	@Override
+    public Stream<Order> streamOrders(final LocalDate today) {
+    	return mode.orders(new Run(today));
+    }
+
+    /**
+     * The whole run is decided before returning, so sale status is fetched
+     * for every item in one call whatever the mode.
+     */
+    @Override
     public List<Order> getOrders(final LocalDate today) {
-    	 
-    	 final List<Order> orders = new ArrayList<>();
-    	 final List<Item> items = database.stockItems();
-
-    	 for(Warehouse warehouse : Warehouse.values()){
-	    	 for(Item item : items){
-	    		 if(item.canOrder(today) ){
-		    		 final Optional<Order> order = item.createOrder(today, database, marketingInfo, warehouse);
-		    		 if(order.isPresent()){
-		    			 orders.add(order.get());
-		    		 }
-	    		 }
-	    	 }
-    	 }
-    	 return orders;
+    	final Run run = new Run(today);
+    	run.fetchSales();
+    	return mode.orders(run).collect(Collectors.toList());
+    }
+
+    /**
+     * The sequential manager adds each quantity to the batch as it is
+     * decided, creating no {@link Order} at all. The parallel and per-pair
+     * modes convert their list.
+     */
+    @Override
+    public OrderBatch getOrderBatch(final LocalDate today) {
+    	return mode.batch(new Run(today));
+    }
+
+    /**
+     * What every mode of one order run shares: the snapshot it reads from,
+     * the pairs it can order, its cached marketing answers and the buffer its
+     * stock level changes go through.
+     */
+    private final class Run {
+
+    	final LocalDate today;
+    	final InventoryDatabase view;
+    	final Catalog.Orderable orderable;
+    	final MarketingInfo marketing;
+    	final WriteBehindInventoryDatabase writes;
+    	private boolean salesFetched;
+
+    	Run(final LocalDate today){
+    		this.today = today;
+    		this.view = database.snapshot();
+    		final Catalog catalog = new Catalog(view.stockItems());
+    		decisions.ifPresent(log -> catalog.recordSkipped(today, log));
+    		this.orderable = catalog.orderable(today);
+    		this.marketing = new CachingMarketingInfo(marketingInfo);
+    		this.writes = new WriteBehindInventoryDatabase(database, MAX_PENDING_WRITES, MAX_WRITE_DELAY);
+    	}
+
+    	/**
+    	 * Asks marketing about every orderable item in one call, for modes
+    	 * that decide the whole run before returning.
+    	 */
+    	void fetchSales(){
+    		if(!salesFetched){
+    			marketing.itemsOnSale(orderable.items.items(), today);
+    			salesFetched = true;
+    		}
+    	}
+
+    	/**
+    	 * Stock of every orderable item, rows numbered by item ID.
+    	 */
+    	StockSnapshot stock(){
+    		return view.stockSnapshot(orderable.items.items());
+    	}
+
+    	int quantity(final int pair, final StockSnapshot stock){
+    		final int id = orderable.pairIds[pair];
+    		final Warehouse warehouse = orderable.pairWarehouses[pair];
+    		return quantity(pair, stock.onHand(id, warehouse), stock.onOrder(id, warehouse));
+    	}
+
+    	int quantity(final int pair, final int onHand, final int onOrder){
+    		final Item item = orderable.item(pair);
+    		final Warehouse warehouse = orderable.pairWarehouses[pair];
+    		final int quantity = item.orderQuantity(today, onHand, onOrder, writes, marketing, warehouse);
+    		if(decisions.isPresent()){
+    			final Outcome outcome = quantity != 0 ? Outcome.ORDERED : item.explain(today, onHand, onOrder, marketing, warehouse);
+    			decisions.get().record(item, warehouse, outcome, onHand, onOrder, quantity);
+    		}
+    		return quantity;
+    	}
+
+    	/**
+    	 * @return the order for a decided quantity, null for no order
+    	 */
+    	Order order(final int pair, final int quantity){
+    		return quantity == 0 ? null : new Order(orderable.item(pair), quantity, orderable.pairWarehouses[pair]);
+    	}
+    }
+
+    /**
+     * How a run decides its pairs.
+     */
+    private interface RunMode {
+
+    	/**
+    	 * @return the run's orders, in catalog order
+    	 */
+    	Stream<Order> orders(Run run);
+
+    	default OrderBatch batch(final Run run){
+    		return OrderBatch.of(orders(run).collect(Collectors.toList()));
+    	}
+    }
+
+    /**
+     * Decides each pair on the consumer's thread as the stream is consumed,
+     * from one bulk stock read. The stream asks marketing about each item
+     * when it reaches it; the batch asks about all of them at once.
+     */
+    private static final class Sequential implements RunMode {
+
+    	@Override
+    	public Stream<Order> orders(final Run run){
+    		final StockSnapshot stock = run.stock();
+    		final Stream<Order> orders = IntStream.range(0, run.orderable.pairs()).mapToObj(pair -> run.order(pair, run.quantity(pair, stock)));
+    		return Streams.onExhaustion(present(orders), run.writes::flush);
+    	}
+
+    	@Override
+    	public OrderBatch batch(final Run run){
+    		run.fetchSales();
+    		final StockSnapshot stock = run.stock();
+    		final OrderBatch.Builder batch = new OrderBatch.Builder(run.orderable.items, run.orderable.pairs() / 4);
+    		try{
+    			for(int pair = 0; pair < run.orderable.pairs(); pair++){
+    				final int quantity = run.quantity(pair, stock);
+    				if(quantity != 0){
+    					batch.add(run.orderable.pairIds[pair], quantity, run.orderable.pairWarehouses[pair]);
+    				}
+    			}
+    		}finally{
+    			run.writes.close();
+    		}
+    		return batch.build();
+    	}
+    }
+
+    /**
+     * Decides pairs in parallel on a fork/join pool, from one bulk stock read,
+     * before the stream is returned.
+     */
+    private static final class Parallel implements RunMode {
+
+    	private final ForkJoinPool pool;
+
+    	Parallel(final ForkJoinPool pool){
+    		this.pool = pool;
+    	}
+
+    	@Override
+    	public Stream<Order> orders(final Run run){
+    		run.fetchSales();
+    		final StockSnapshot stock = run.stock();
+    		run.marketing.season(run.today);
+    		final List<Order> orders = pool.submit(() -> present(IntStream.range(0, run.orderable.pairs()).parallel()
+    				.mapToObj(pair -> run.order(pair, run.quantity(pair, stock)))).collect(Collectors.toList())).join();
+    		run.writes.flush();
+    		return orders.stream();
+    	}
+    }
+
+    /**
+     * Decides each pair as its own task on an executor, reading its stock
+     * with separate database calls, before the stream is returned.
+     */
+    private static final class PerPair implements RunMode {
+
+    	private final Executor executor;
+    	private final int maxDatabaseCalls;
+
+    	PerPair(final Executor executor, final int maxDatabaseCalls){
+    		this.executor = executor;
+    		this.maxDatabaseCalls = positive(maxDatabaseCalls);
+    	}
+
+    	static int positive(final int maxDatabaseCalls){
+    		if(maxDatabaseCalls < 1){
+    			throw new IllegalArgumentException("maxDatabaseCalls must be positive: " + maxDatabaseCalls);
+    		}
+    		return maxDatabaseCalls;
+    	}
+
+    	@Override
+    	public Stream<Order> orders(final Run run){
+    		run.fetchSales();
+    		run.marketing.season(run.today);
+    		final Semaphore databaseCalls = new Semaphore(maxDatabaseCalls);
+    		final List<CompletableFuture<Order>> decisions = new ArrayList<>(run.orderable.pairs());
+    		for(int pair = 0; pair < run.orderable.pairs(); pair++){
+    			final int decided = pair;
+    			final Item item = run.orderable.item(pair);
+    			final Warehouse warehouse = run.orderable.pairWarehouses[pair];
+    			decisions.add(CompletableFuture.supplyAsync(() -> {
+    				final int onHand = limited(databaseCalls, () -> run.view.onHand(item, warehouse));
+    				final int onOrder = limited(databaseCalls, () -> run.view.onOrder(item, warehouse));
+    				return run.order(decided, run.quantity(decided, onHand, onOrder));
+    			}, executor));
+    		}
+    		final List<Order> orders = present(decisions.stream().map(CompletableFuture::join)).collect(Collectors.toList());
+    		run.writes.flush();
+    		return orders.stream();
+    	}
+    }
+
+    /**
+     * {@link PerPair} on a new virtual thread for every pair, with an
+     * executor that lives for one run.
+     */
+    private static final class OnVirtualThreads implements RunMode {
+
+    	private final int maxDatabaseCalls;
+
+    	OnVirtualThreads(final int maxDatabaseCalls){
+    		this.maxDatabaseCalls = PerPair.positive(maxDatabaseCalls);
+    	}
+
+    	@Override
+    	public Stream<Order> orders(final Run run){
+    		final ExecutorService executor = VirtualThreads.newPerTaskExecutor();
+    		try{
+    			return new PerPair(executor, maxDatabaseCalls).orders(run);
+    		}finally{
+    			executor.shutdown();
+    		}
+    	}
+    }
+
+    private static int limited(final Semaphore permits, final IntSupplier call) {
+    	permits.acquireUninterruptibly();
+    	try {
+    		return call.getAsInt();
+    	} finally {
+    		permits.release();
+    	}
+    }
+
+    private static Stream<Order> present(final Stream<Order> decisions) {
+    	return decisions.filter(Objects::nonNull);
     }
 
 }
@@ -0,0 +1,209 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cjpowered.learn.inventory.DecisionLog;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemRegistry;
+import com.cjpowered.learn.inventory.Outcome;
+import com.cjpowered.learn.inventory.Schedule;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Stock items as loaded for an order run, grouped by {@link Schedule} so
+ * each distinct schedule is asked about a date once and items that cannot be
+ * ordered are skipped a whole group at a time. Within a group, items are
+ * indexed by the warehouses that stock them so unstocked item and warehouse
+ * pairs are never visited. The groups only decide which items are
+ * orderable; those are listed in catalog order.
+ */
+final class Catalog {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private final Map<Schedule, Bucket> bySchedule = new LinkedHashMap<>();
+	private final List<Item> stockedNowhere = new ArrayList<>();
+	private final List<Item> items;
+
+	/**
+	 * per catalog index: the item's bucket, or null if it is stocked nowhere
+	 */
+	private final Bucket[] bucketOf;
+
+	Catalog(final List<Item> items){
+		this.items = items;
+		this.bucketOf = new Bucket[items.size()];
+		for(int index = 0; index < items.size(); index++){
+			final Item item = items.get(index);
+			boolean stockedAnywhere = false;
+			for(Warehouse warehouse : WAREHOUSES){
+				stockedAnywhere |= item.stocks(warehouse);
+			}
+			if(stockedAnywhere){
+				bucketOf[index] = bySchedule.computeIfAbsent(item.schedule(), schedule -> new Bucket(bySchedule.size()));
+				bucketOf[index].add(item, index);
+			}else{
+				stockedNowhere.add(item);
+			}
+		}
+	}
+
+	/**
+	 * Records the pairs {@link #orderable(LocalDate)} leaves out, as
+	 * {@link Outcome#OFF_SCHEDULE} or {@link Outcome#NOT_STOCKED}, with no
+	 * stock read.
+	 */
+	void recordSkipped(final LocalDate today, final DecisionLog log){
+		for(Item item : stockedNowhere){
+			for(Warehouse warehouse : WAREHOUSES){
+				log.record(item, warehouse, Outcome.NOT_STOCKED, -1, -1, 0);
+			}
+		}
+		for(Map.Entry<Schedule, Bucket> bucket : bySchedule.entrySet()){
+			final boolean open = bucket.getKey().canOrderToday(today);
+			for(Item item : bucket.getValue().items){
+				for(Warehouse warehouse : WAREHOUSES){
+					if(!item.stocks(warehouse)){
+						log.record(item, warehouse, Outcome.NOT_STOCKED, -1, -1, 0);
+					}else if(!open){
+						log.record(item, warehouse, Outcome.OFF_SCHEDULE, -1, -1, 0);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Asks each distinct schedule once whether it allows ordering on
+	 * {@code today}.
+	 */
+	Orderable orderable(final LocalDate today){
+		final List<Bucket> buckets = new ArrayList<>();
+		final boolean[] open = new boolean[bySchedule.size()];
+		for(Map.Entry<Schedule, Bucket> bucket : bySchedule.entrySet()){
+			if(bucket.getKey().canOrderToday(today)){
+				buckets.add(bucket.getValue());
+				open[bucket.getValue().number] = true;
+			}
+		}
+		return new Orderable(this, buckets, open);
+	}
+
+	/**
+	 * Items sharing a schedule, their catalog indexes, and the positions
+	 * within the bucket of the items each warehouse stocks.
+	 */
+	private static final class Bucket {
+
+		/**
+		 * position of the bucket in order of first appearance
+		 */
+		final int number;
+
+		final List<Item> items = new ArrayList<>();
+		int[] indexes = new int[8];
+		final int[][] stocked = new int[WAREHOUSES.length][8];
+		final int[] stockedCount = new int[WAREHOUSES.length];
+
+		Bucket(final int number){
+			this.number = number;
+		}
+
+		void add(final Item item, final int index){
+			for(Warehouse warehouse : WAREHOUSES){
+				if(item.stocks(warehouse)){
+					final int w = warehouse.ordinal();
+					if(stockedCount[w] == stocked[w].length){
+						stocked[w] = Arrays.copyOf(stocked[w], stocked[w].length * 2);
+					}
+					stocked[w][stockedCount[w]++] = items.size();
+				}
+			}
+			if(items.size() == indexes.length){
+				indexes = Arrays.copyOf(indexes, indexes.length * 2);
+			}
+			indexes[items.size()] = index;
+			items.add(item);
+		}
+	}
+
+	/**
+	 * Items that can be ordered on one day, and the warehouses they can be
+	 * ordered for. Items are numbered by an {@link ItemRegistry}, and pairs
+	 * refer to them by ID.
+	 */
+	static final class Orderable {
+
+		/**
+		 * items stocked in some warehouse whose schedule is open, in catalog
+		 * order
+		 */
+		final ItemRegistry items;
+
+		/**
+		 * item ID of each stocked pair, warehouse by warehouse, in ID order
+		 */
+		final int[] pairIds;
+
+		/**
+		 * warehouse of each stocked pair
+		 */
+		final Warehouse[] pairWarehouses;
+
+		/**
+		 * @param open
+		 *            per bucket number: whether its schedule is open
+		 */
+		private Orderable(final Catalog catalog, final List<Bucket> buckets, final boolean[] open){
+			final List<Item> items = new ArrayList<>();
+			final int[] ids = new int[catalog.bucketOf.length];
+			for(int index = 0; index < ids.length; index++){
+				final Bucket bucket = catalog.bucketOf[index];
+				if(bucket != null && open[bucket.number]){
+					ids[index] = items.size();
+					items.add(catalog.items.get(index));
+				}
+			}
+			int pairs = 0;
+			for(Bucket bucket : buckets){
+				for(int count : bucket.stockedCount){
+					pairs += count;
+				}
+			}
+			this.items = new ItemRegistry(items);
+			this.pairIds = new int[pairs];
+			this.pairWarehouses = new Warehouse[pairs];
+			int pair = 0;
+			for(Warehouse warehouse : WAREHOUSES){
+				final int first = pair;
+				for(Bucket bucket : buckets){
+					final int count = bucket.stockedCount[warehouse.ordinal()];
+					final int[] stocked = bucket.stocked[warehouse.ordinal()];
+					for(int i = 0; i < count; i++){
+						pairIds[pair] = ids[bucket.indexes[stocked[i]]];
+						pairWarehouses[pair] = warehouse;
+						pair++;
+					}
+				}
+				// buckets are in catalog order each, not with each other
+				if(buckets.size() > 1){
+					Arrays.sort(pairIds, first, pair);
+				}
+			}
+		}
+
+		int pairs(){
+			return pairIds.length;
+		}
+
+		Item item(final int pair){
+			return items.item(pairIds[pair]);
+		}
+	}
+
+}
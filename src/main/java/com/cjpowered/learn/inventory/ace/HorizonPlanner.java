@@ -0,0 +1,291 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.cjpowered.learn.inventory.*;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Projects the orders {@link AceInventoryManager} would place over a range of
+ * days, for planning ahead with suppliers.
+ *
+ * The catalog and its stock are read once, and the projection then steps
+ * through the range a day at a time. Each day:
+ * <ol>
+ * <li>orders placed {@code leadTimeDays} earlier arrive, moving from on-order
+ * to on-hand; stock already on order at the start arrives after the lead
+ * time too,</li>
+ * <li>orders are decided by the reorder rules as a run on that day would
+ * decide them, with that day's schedules, sales and season, and go on
+ * order,</li>
+ * <li>the day's {@link Demand} is taken from on-hand stock, down to zero.</li>
+ * </ol>
+ * A stock level raised because an item ran out applies from the next day, as
+ * it would after a real run, and every rule uses the item's own
+ * {@link RuleSettings}. Nothing is written to the database.
+ *
+ * Per-day orders come out in the order {@link AceInventoryManager#getOrders}
+ * would list them, numbered by one {@link ItemRegistry} for the whole
+ * projection. Only {@link StockedItem} and {@link SeasonalItem} items can be
+ * projected.
+ */
+public final class HorizonPlanner {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	/**
+	 * Units expected to leave a warehouse's stock on a day.
+	 */
+	@FunctionalInterface
+	public interface Demand {
+		int units(Item item, Warehouse warehouse, LocalDate day);
+	}
+
+	/**
+	 * Orders projected for one day.
+	 */
+	public static final class Day {
+
+		public final LocalDate date;
+
+		public final OrderBatch orders;
+
+		Day(final LocalDate date, final OrderBatch orders){
+			this.date = date;
+			this.orders = orders;
+		}
+	}
+
+	private final InventoryDatabase database;
+	private final MarketingInfo marketingInfo;
+	private final Demand demand;
+	private final int leadTimeDays;
+
+	public HorizonPlanner(final InventoryDatabase database, final MarketingInfo marketingInfo, final Demand demand, final int leadTimeDays){
+		if(leadTimeDays < 1){
+			throw new IllegalArgumentException("lead time must be at least a day: " + leadTimeDays);
+		}
+		this.database = database;
+		this.marketingInfo = marketingInfo;
+		this.demand = demand;
+		this.leadTimeDays = leadTimeDays;
+	}
+
+	/**
+	 * Reads the catalog and stock now; later days are projected as the stream
+	 * is consumed.
+	 *
+	 * @param from
+	 *            first day, whose orders are those of a run on that day
+	 * @param days
+	 *            number of days to project
+	 */
+	public Stream<Day> plan(final LocalDate from, final int days){
+		final Projection projection = new Projection(database.stockItems());
+		final Iterator<Day> plan = new Iterator<Day>() {
+
+			private int day;
+
+			@Override
+			public boolean hasNext() {
+				return day < days;
+			}
+
+			@Override
+			public Day next() {
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				return projection.advance(from.plusDays(day++));
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliterator(plan, Math.max(days, 0), Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Projected stock of every stocked item and warehouse pair. Items are
+	 * kept in catalog order, as {@link Catalog} lists them, and pairs are
+	 * listed warehouse by warehouse, so a day's pairs in order give that
+	 * day's orders in order. A day's decisions are made by one
+	 * {@link ReorderRules#evaluate} pass over each run of pairs whose items
+	 * share their settings.
+	 */
+	private final class Projection {
+
+		private final ItemRegistry items;
+		private final ItemColumns columns;
+		private final Schedule[] schedules;
+
+		/**
+		 * per item ID: index of its schedule in {@code schedules}
+		 */
+		private final int[] itemSchedules;
+
+		private final int[] pairIds;
+		private final Warehouse[] pairWarehouses;
+		private final int[] pairSchedules;
+		private final int[] onHand;
+		private final int[] onOrder;
+		private final int[] target;
+		private final int[] bunch;
+
+		/**
+		 * pairs from the end of the previous run up to {@code runEnds[run]}
+		 * are decided with {@code runSettings[run]}
+		 */
+		private final int[] runEnds;
+		private final RuleSettings[] runSettings;
+
+		/**
+		 * the current day's rule flags and decisions per pair
+		 */
+		private final byte[] flags;
+		private final int[] quantity;
+
+		/**
+		 * units arriving on each of the next {@code leadTimeDays + 1} days,
+		 * by day number modulo the array length
+		 */
+		private final int[][] arriving;
+		private int dayNumber;
+
+		Projection(final List<Item> stockItems){
+			final Map<Schedule, Integer> scheduleIndexes = new LinkedHashMap<>();
+			final List<Item> stocked = new ArrayList<>();
+			final List<Integer> stockedSchedules = new ArrayList<>();
+			for(Item item : stockItems){
+				boolean stockedAnywhere = false;
+				for(Warehouse warehouse : WAREHOUSES){
+					stockedAnywhere |= item.stocks(warehouse);
+				}
+				if(stockedAnywhere){
+					stocked.add(item);
+					stockedSchedules.add(scheduleIndexes.computeIfAbsent(item.schedule(), schedule -> scheduleIndexes.size()));
+				}
+			}
+			schedules = scheduleIndexes.keySet().toArray(new Schedule[0]);
+			itemSchedules = new int[stocked.size()];
+			for(int id = 0; id < itemSchedules.length; id++){
+				itemSchedules[id] = stockedSchedules.get(id);
+			}
+			items = new ItemRegistry(stocked);
+			columns = new ItemColumns(items);
+
+			int pairs = 0;
+			for(int id = 0; id < items.size(); id++){
+				for(Warehouse warehouse : WAREHOUSES){
+					pairs += items.item(id).stocks(warehouse) ? 1 : 0;
+				}
+			}
+			pairIds = new int[pairs];
+			pairWarehouses = new Warehouse[pairs];
+			pairSchedules = new int[pairs];
+			onHand = new int[pairs];
+			onOrder = new int[pairs];
+			target = new int[pairs];
+			bunch = new int[pairs];
+			flags = new byte[pairs];
+			quantity = new int[pairs];
+			arriving = new int[leadTimeDays + 1][pairs];
+			final List<Integer> ends = new ArrayList<>();
+			final List<RuleSettings> settings = new ArrayList<>();
+
+			final StockSnapshot stock = database.stockSnapshot(items.items());
+			int pair = 0;
+			for(Warehouse warehouse : WAREHOUSES){
+				for(int id = 0; id < items.size(); id++){
+					if(items.item(id).stocks(warehouse)){
+						pairIds[pair] = id;
+						pairWarehouses[pair] = warehouse;
+						pairSchedules[pair] = itemSchedules[id];
+						onHand[pair] = stock.onHand(id, warehouse);
+						onOrder[pair] = stock.onOrder(id, warehouse);
+						target[pair] = columns.target(id, warehouse);
+						bunch[pair] = columns.bunch(id);
+						arriving[leadTimeDays][pair] = onOrder[pair];
+						if(settings.isEmpty() || !settings.get(settings.size() - 1).equals(columns.settings(id))){
+							settings.add(columns.settings(id));
+							ends.add(pair);
+						}
+						pair++;
+					}
+				}
+			}
+			ends.add(pairs);
+			runEnds = new int[settings.size()];
+			for(int run = 0; run < runEnds.length; run++){
+				runEnds[run] = ends.get(run + 1);
+			}
+			runSettings = settings.toArray(new RuleSettings[0]);
+		}
+
+		Day advance(final LocalDate day){
+			final int[] arrivals = arriving[dayNumber % arriving.length];
+			final int[] placed = arriving[(dayNumber + leadTimeDays) % arriving.length];
+			dayNumber++;
+
+			final boolean[] open = new boolean[schedules.length];
+			for(int s = 0; s < schedules.length; s++){
+				open[s] = schedules[s].canOrderToday(day);
+			}
+			final List<Item> orderable = new ArrayList<>();
+			for(int id = 0; id < items.size(); id++){
+				if(open[itemSchedules[id]]){
+					orderable.add(items.item(id));
+				}
+			}
+			final Set<Item> onSale = orderable.isEmpty() ? null : marketingInfo.itemsOnSale(orderable, day);
+			final Season season = orderable.isEmpty() ? null : marketingInfo.season(day);
+
+			for(int pair = 0; pair < pairIds.length; pair++){
+				onHand[pair] += arrivals[pair];
+				onOrder[pair] -= arrivals[pair];
+				arrivals[pair] = 0;
+
+				final int id = pairIds[pair];
+				flags[pair] = open[pairSchedules[pair]] ? (byte)columns.flags(id, season, onSale.contains(items.item(id))) : ReorderRules.OFF_SCHEDULE;
+			}
+			int from = 0;
+			for(int run = 0; run < runEnds.length; run++){
+				ReorderRules.evaluate(from, runEnds[run], onHand, onOrder, target, bunch, flags, runSettings[run], quantity);
+				from = runEnds[run];
+			}
+
+			final OrderBatch.Builder orders = new OrderBatch.Builder(items, 64);
+			int run = 0;
+			for(int pair = 0; pair < pairIds.length; pair++){
+				while(pair == runEnds[run]){
+					run++;
+				}
+				final int id = pairIds[pair];
+				final Warehouse warehouse = pairWarehouses[pair];
+				if(open[pairSchedules[pair]]){
+					if(onHand[pair] + onOrder[pair] == 0){
+						target[pair] = runSettings[run].raisedTarget(target[pair]);
+					}
+					if(quantity[pair] != 0){
+						orders.add(id, quantity[pair], warehouse);
+						onOrder[pair] += quantity[pair];
+						placed[pair] += quantity[pair];
+					}
+				}
+
+				onHand[pair] = Math.max(0, onHand[pair] - demand.units(items.item(id), warehouse, day));
+			}
+			return new Day(day, orders.build());
+		}
+	}
+
+}
@@ -0,0 +1,376 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.cjpowered.learn.inventory.*;
+import com.cjpowered.learn.marketing.CachingMarketingInfo;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Orders as {@link AceInventoryManager} decides them, remembering each item
+ * and warehouse pair's decision between runs so a run only reads stock for,
+ * and decides, the pairs that may have changed.
+ *
+ * A pair is decided again when
+ * <ul>
+ * <li>a {@link Change} naming it was reported since its last decision,</li>
+ * <li>its item is a different instance than last time, as a database that
+ * rebuilds an item after its stock level changes returns,</li>
+ * <li>its last decision asked for the season and the season is now a
+ * different one, or</li>
+ * <li>it has not been decided before.</li>
+ * </ul>
+ * Any other pair gets its previous quantity, and a stock level change the
+ * previous decision made is written again, so orders and writes match those
+ * of a full run. The catalog is still listed every run; it is the stock
+ * reads and decisions that are saved.
+ *
+ * That holds as long as every change to stock counts or sales is reported
+ * once it is visible in the database, and items decide from their counts,
+ * the sale and the season only, as {@link StockedItem} and
+ * {@link SeasonalItem} do. Changes may be reported from any thread; runs are
+ * serialized.
+ */
+public final class IncrementalInventoryManager implements InventoryManager {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	/**
+	 * Something that may change the orders for an item.
+	 */
+	public static final class Change {
+
+		public final Item item;
+
+		/**
+		 * warehouse affected, or empty for all of them
+		 */
+		public final Optional<Warehouse> warehouse;
+
+		private Change(final Item item, final Optional<Warehouse> warehouse){
+			this.item = item;
+			this.warehouse = warehouse;
+		}
+
+		/**
+		 * Units moved into or out of stock, e.g. sold or counted.
+		 */
+		public static Change stock(final Item item, final Warehouse warehouse){
+			return new Change(item, Optional.of(warehouse));
+		}
+
+		/**
+		 * Units on order arrived, moving from on-order to on-hand.
+		 */
+		public static Change received(final Item item, final Warehouse warehouse){
+			return new Change(item, Optional.of(warehouse));
+		}
+
+		/**
+		 * A sale of the item started or ended.
+		 */
+		public static Change sale(final Item item){
+			return new Change(item, Optional.empty());
+		}
+
+		/**
+		 * The item's stock level was set, for a database that keeps
+		 * returning the same item instance afterwards.
+		 */
+		public static Change target(final Item item, final Warehouse warehouse){
+			return new Change(item, Optional.of(warehouse));
+		}
+
+		@Override
+		public String toString() {
+			return "Change{" +
+					"item=" + item +
+					", warehouse=" + warehouse +
+					'}';
+		}
+	}
+
+	private final InventoryDatabase database;
+	private final MarketingInfo marketingInfo;
+
+	private final Object changeLock = new Object();
+
+	/**
+	 * pairs changed since the last run began, guarded by changeLock
+	 */
+	private Map<Item, Set<Warehouse>> changed = new IdentityHashMap<>();
+
+	/**
+	 * the last run's catalog and the decisions for its items, guarded by
+	 * this
+	 */
+	private Item[] items = new Item[0];
+	private Catalog catalog = new Catalog(Collections.emptyList());
+	private Map<Item, Decided> decided = new IdentityHashMap<>();
+
+	public IncrementalInventoryManager(final InventoryDatabase database, final MarketingInfo marketingInfo){
+		this.database = database;
+		this.marketingInfo = marketingInfo;
+	}
+
+	public void changed(final Change change){
+		synchronized(changeLock){
+			final Set<Warehouse> warehouses = changed.computeIfAbsent(change.item, item -> EnumSet.noneOf(Warehouse.class));
+			if(change.warehouse.isPresent()){
+				warehouses.add(change.warehouse.get());
+			}else{
+				warehouses.addAll(EnumSet.allOf(Warehouse.class));
+			}
+		}
+	}
+
+	public void changed(final Collection<Change> changes){
+		for(Change change : changes){
+			changed(change);
+		}
+	}
+
+	/**
+	 * Every item is evaluated before the stream is returned.
+	 */
+	@Override
+	public Stream<Order> streamOrders(final LocalDate today){
+		return getOrderBatch(today).toList().stream();
+	}
+
+	@Override
+	public synchronized OrderBatch getOrderBatch(final LocalDate today){
+		final Map<Item, Set<Warehouse>> changes;
+		synchronized(changeLock){
+			changes = changed;
+			changed = new IdentityHashMap<>();
+		}
+		// changes taken above were visible before the snapshot is taken
+		final InventoryDatabase view;
+		final List<Item> stockItems;
+		try{
+			view = database.snapshot();
+			stockItems = view.stockItems();
+		}catch(RuntimeException e){
+			synchronized(changeLock){
+				for(Map.Entry<Item, Set<Warehouse>> change : changes.entrySet()){
+					changed.computeIfAbsent(change.getKey(), item -> EnumSet.noneOf(Warehouse.class)).addAll(change.getValue());
+				}
+			}
+			throw e;
+		}
+		if(!sameItems(stockItems)){
+			final Map<Item, Decided> kept = new IdentityHashMap<>(stockItems.size());
+			for(Item item : stockItems){
+				final Decided previous = decided.get(item);
+				if(previous != null){
+					kept.put(item, previous);
+				}
+			}
+			decided = kept;
+			items = stockItems.toArray(new Item[0]);
+			catalog = new Catalog(stockItems);
+		}
+		for(Map.Entry<Item, Set<Warehouse>> change : changes.entrySet()){
+			final Decided previous = decided.get(change.getKey());
+			if(previous != null){
+				previous.forget(change.getValue());
+			}
+		}
+
+		final Catalog.Orderable orderable = catalog.orderable(today);
+		final MarketingInfo marketing = new CachingMarketingInfo(marketingInfo);
+		final Decided[] decisions = new Decided[orderable.items.size()];
+		final boolean[] stale = new boolean[orderable.pairs()];
+		final int[] rows = new int[orderable.items.size()];
+		final List<Item> staleItems = new ArrayList<>();
+		for(int pair = 0; pair < orderable.pairs(); pair++){
+			final int id = orderable.pairIds[pair];
+			final Item item = orderable.items.item(id);
+			if(decisions[id] == null){
+				decisions[id] = decided.computeIfAbsent(item, key -> new Decided());
+			}
+			stale[pair] = !decisions[id].holds(orderable.pairWarehouses[pair], marketing, today);
+			if(stale[pair] && rows[id] == 0){
+				staleItems.add(item);
+				rows[id] = staleItems.size();
+			}
+		}
+		final StockSnapshot stock = view.stockSnapshot(staleItems);
+		marketing.itemsOnSale(staleItems, today);
+
+		final OrderBatch.Builder batch = new OrderBatch.Builder(orderable.items, orderable.pairs() / 4);
+		try(WriteBehindInventoryDatabase writes = new WriteBehindInventoryDatabase(database, AceInventoryManager.MAX_PENDING_WRITES, AceInventoryManager.MAX_WRITE_DELAY)){
+			final Recorder recorder = new Recorder(writes, marketing);
+			for(int pair = 0; pair < orderable.pairs(); pair++){
+				final int id = orderable.pairIds[pair];
+				final Item item = orderable.items.item(id);
+				final Warehouse warehouse = orderable.pairWarehouses[pair];
+				final Decided decision = decisions[id];
+				if(stale[pair]){
+					recorder.start();
+					final int quantity = item.orderQuantity(today, stock.onHand(rows[id] - 1, warehouse), stock.onOrder(rows[id] - 1, warehouse), recorder, recorder.marketing, warehouse);
+					decision.remember(warehouse, quantity, recorder.season, recorder.written());
+				}else{
+					decision.replay(warehouse, writes);
+				}
+				final int quantity = decision.quantities[warehouse.ordinal()];
+				if(quantity != 0){
+					batch.add(id, quantity, warehouse);
+				}
+			}
+		}
+		return batch.build();
+	}
+
+	private boolean sameItems(final List<Item> stockItems){
+		if(stockItems.size() != items.length){
+			return false;
+		}
+		for(int row = 0; row < items.length; row++){
+			if(stockItems.get(row) != items[row]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * One item's last decision in each warehouse.
+	 */
+	private static final class Decided {
+
+		private static final RequiredOnHand[] NONE = new RequiredOnHand[0];
+
+		final int[] quantities = new int[WAREHOUSES.length];
+
+		/**
+		 * per warehouse: season the decision asked for, null if it did not
+		 */
+		final Season[] seasons = new Season[WAREHOUSES.length];
+
+		/**
+		 * per warehouse: stock level changes the decision made, null while
+		 * undecided or after a change
+		 */
+		final RequiredOnHand[][] writes = new RequiredOnHand[WAREHOUSES.length][];
+
+		void forget(final Set<Warehouse> warehouses){
+			for(Warehouse warehouse : warehouses){
+				writes[warehouse.ordinal()] = null;
+			}
+		}
+
+		boolean holds(final Warehouse warehouse, final MarketingInfo marketing, final LocalDate today){
+			final int w = warehouse.ordinal();
+			return writes[w] != null && (seasons[w] == null || seasons[w] == marketing.season(today));
+		}
+
+		void remember(final Warehouse warehouse, final int quantity, final Season season, final List<RequiredOnHand> written){
+			final int w = warehouse.ordinal();
+			quantities[w] = quantity;
+			seasons[w] = season;
+			writes[w] = written.isEmpty() ? NONE : written.toArray(NONE);
+		}
+
+		void replay(final Warehouse warehouse, final InventoryDatabase database){
+			for(RequiredOnHand write : writes[warehouse.ordinal()]){
+				database.setRequiredOnHand(write.item, write.warehouse, write.amount);
+			}
+		}
+	}
+
+	/**
+	 * Passed to one decision at a time, noting whether it asked for the
+	 * season and which stock levels it changed.
+	 */
+	private static final class Recorder implements InventoryDatabase {
+
+		private final InventoryDatabase writes;
+		private final List<RequiredOnHand> written = new ArrayList<>();
+		final MarketingInfo marketing;
+		Season season;
+
+		Recorder(final InventoryDatabase writes, final MarketingInfo marketing){
+			this.writes = writes;
+			this.marketing = new MarketingInfo() {
+
+				@Override
+				public boolean onSale(final Item item, final LocalDate when){
+					return marketing.onSale(item, when);
+				}
+
+				@Override
+				public Set<Item> itemsOnSale(final Collection<Item> items, final LocalDate when){
+					return marketing.itemsOnSale(items, when);
+				}
+
+				@Override
+				public Season season(final LocalDate when){
+					season = marketing.season(when);
+					return season;
+				}
+			};
+		}
+
+		void start(){
+			season = null;
+			written.clear();
+		}
+
+		List<RequiredOnHand> written(){
+			return written;
+		}
+
+		@Override
+		public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount){
+			written.add(new RequiredOnHand(item, warehouse, newAmount));
+			writes.setRequiredOnHand(item, warehouse, newAmount);
+		}
+
+		@Override
+		@Deprecated
+		public void setRequiredOnHand(final Item item, final int newAmount){
+			setRequiredOnHand(item, Warehouse.home(), newAmount);
+		}
+
+		@Override
+		public List<Item> stockItems(){
+			return writes.stockItems();
+		}
+
+		@Override
+		public int onHand(final Item item, final Warehouse warehouse){
+			return writes.onHand(item, warehouse);
+		}
+
+		@Override
+		public int onOrder(final Item item, final Warehouse warehouse){
+			return writes.onOrder(item, warehouse);
+		}
+
+		@Override
+		@Deprecated
+		public int onHand(final Item item){
+			return onHand(item, Warehouse.home());
+		}
+
+		@Override
+		@Deprecated
+		public int onOrder(final Item item){
+			return onOrder(item, Warehouse.home());
+		}
+	}
+
+}
@@ -0,0 +1,158 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.cjpowered.learn.inventory.*;
+import com.cjpowered.learn.marketing.CachingMarketingInfo;
+import com.cjpowered.learn.marketing.MarketingInfo;
+
+/**
+ * Order manager for an {@link AsyncInventoryDatabase}: stock reads for the
+ * next item and warehouse pairs are requested while earlier pairs are being
+ * decided, hiding database round trips without a thread per item.
+ *
+ * At most {@code maxInFlight} reads are outstanding at once; each pair needs
+ * two, one for on-hand and one for on-order. Orders come out in the same
+ * order as from {@link AceInventoryManager}, and rules are evaluated on the
+ * thread consuming the stream, so {@code marketingInfo} need not be
+ * thread-safe. Stock level changes are written in batches through
+ * {@link AsyncInventoryDatabase#setRequiredOnHand(Collection)}.
+ */
+public final class PipelinedInventoryManager implements InventoryManager {
+
+	private static final int MAX_PENDING_WRITES = 1000;
+	private static final Duration MAX_WRITE_DELAY = Duration.ofSeconds(5);
+
+	private final AsyncInventoryDatabase database;
+	private final MarketingInfo marketingInfo;
+	private final int window;
+
+	public PipelinedInventoryManager(final AsyncInventoryDatabase database, final MarketingInfo marketingInfo, final int maxInFlight){
+		if(maxInFlight < 2){
+			throw new IllegalArgumentException("need room for the two reads of one pair: " + maxInFlight);
+		}
+		this.database = database;
+		this.marketingInfo = marketingInfo;
+		this.window = maxInFlight / 2;
+	}
+
+	/**
+	 * Reads for later pairs are only issued as the stream is consumed. The
+	 * last batch of stock level changes is written when the stream is fully
+	 * consumed or closed.
+	 */
+	@Override
+	public Stream<Order> streamOrders(final LocalDate today) {
+		final Catalog.Orderable orderable = new Catalog(database.stockItems().join()).orderable(today);
+		final MarketingInfo marketing = new CachingMarketingInfo(marketingInfo);
+		marketing.itemsOnSale(orderable.items.items(), today);
+		final WriteBehindInventoryDatabase writes = new WriteBehindInventoryDatabase(new Blocking(database), MAX_PENDING_WRITES, MAX_WRITE_DELAY);
+
+		final Iterator<Order> decisions = new Iterator<Order>() {
+
+			private final Deque<CompletableFuture<int[]>> reads = new ArrayDeque<>();
+			private int next;
+			private int decided;
+
+			@Override
+			public boolean hasNext() {
+				return decided < orderable.pairs();
+			}
+
+			@Override
+			public Order next() {
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				while(next < orderable.pairs() && reads.size() < window){
+					final Item item = orderable.item(next);
+					final Warehouse warehouse = orderable.pairWarehouses[next];
+					reads.add(database.onHand(item, warehouse).thenCombine(database.onOrder(item, warehouse), (onHand, onOrder) -> new int[] { onHand, onOrder }));
+					next++;
+				}
+				final int[] stock = reads.remove().join();
+				final Item item = orderable.item(decided);
+				final Warehouse warehouse = orderable.pairWarehouses[decided];
+				decided++;
+				final int quantity = item.orderQuantity(today, stock[0], stock[1], writes, marketing, warehouse);
+				return quantity == 0 ? null : new Order(item, quantity, warehouse);
+			}
+		};
+
+		final Stream<Order> orders = StreamSupport.stream(Spliterators.spliterator(decisions, orderable.pairs(), Spliterator.ORDERED), false)
+				.filter(Objects::nonNull);
+		return Streams.onExhaustion(orders, writes::flush);
+	}
+
+	/**
+	 * Blocking view of an {@link AsyncInventoryDatabase}, through which the
+	 * items' stock level changes are written. Each call waits for its
+	 * request to complete.
+	 */
+	private static final class Blocking implements InventoryDatabase {
+
+		private final AsyncInventoryDatabase database;
+
+		Blocking(final AsyncInventoryDatabase database){
+			this.database = database;
+		}
+
+		@Override
+		public void setRequiredOnHand(final Collection<RequiredOnHand> changes){
+			database.setRequiredOnHand(changes).join();
+		}
+
+		@Override
+		public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount){
+			setRequiredOnHand(Collections.singletonList(new RequiredOnHand(item, warehouse, newAmount)));
+		}
+
+		@Override
+		public List<Item> stockItems(){
+			return database.stockItems().join();
+		}
+
+		@Override
+		public int onHand(final Item item, final Warehouse warehouse){
+			return database.onHand(item, warehouse).join();
+		}
+
+		@Override
+		public int onOrder(final Item item, final Warehouse warehouse){
+			return database.onOrder(item, warehouse).join();
+		}
+
+		@Override
+		@Deprecated
+		public int onHand(final Item item){
+			return onHand(item, Warehouse.home());
+		}
+
+		@Override
+		@Deprecated
+		public int onOrder(final Item item){
+			return onOrder(item, Warehouse.home());
+		}
+
+		@Override
+		@Deprecated
+		public void setRequiredOnHand(final Item item, final int newAmount){
+			setRequiredOnHand(item, Warehouse.home(), newAmount);
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads, which need Java 21, from code built for Java 8.
+ * The executor factory is looked up reflectively, so the same jar runs on
+ * older JVMs with virtual threads reported as unavailable.
+ */
+final class VirtualThreads {
+
+	private static final Method NEW_EXECUTOR = lookup();
+
+	private VirtualThreads(){
+	}
+
+	static boolean available(){
+		return NEW_EXECUTOR != null;
+	}
+
+	/**
+	 * @return executor starting a new virtual thread for each task
+	 *
+	 * @throws UnsupportedOperationException
+	 *             on JVMs without virtual threads
+	 */
+	static ExecutorService newPerTaskExecutor(){
+		if(NEW_EXECUTOR == null){
+			throw new UnsupportedOperationException("virtual threads need Java 21 or later, running " + System.getProperty("java.version"));
+		}
+		try{
+			return (ExecutorService) NEW_EXECUTOR.invoke(null);
+		}catch(IllegalAccessException | InvocationTargetException e){
+			throw new IllegalStateException("cannot create virtual thread executor", e);
+		}
+	}
+
+	private static Method lookup(){
+		try{
+			final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			// a preview API on Java 19 and 20 throws unless previews are enabled
+			((ExecutorService) method.invoke(null)).shutdown();
+			return method;
+		}catch(ReflectiveOperationException | RuntimeException e){
+			return null;
+		}
+	}
+
+}
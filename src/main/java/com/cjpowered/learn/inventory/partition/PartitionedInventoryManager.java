@@ -0,0 +1,191 @@
+package com.cjpowered.learn.inventory.partition;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.RequiredOnHand;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.MarketingInfo;
+
+/**
+ * Coordinator of an order run split across worker processes. The stock item
+ * and warehouse pairs are split into {@code shards} by {@link Shards}; each
+ * shard is sent to a worker through a {@link ShardTransport}, and the
+ * workers' orders are merged into the order
+ * {@link com.cjpowered.learn.inventory.ace.AceInventoryManager} lists them in.
+ *
+ * Workers must read the same catalog as {@code database}, in the same order,
+ * since items travel as their position in {@link InventoryDatabase#stockItems()};
+ * each request carries the size and a hash of the catalog, and a worker
+ * listing another one refuses the shard, which is then sent elsewhere as if
+ * the worker had failed.
+ * Workers do not write; the stock level changes they report are written here
+ * in one batch once every shard has succeeded.
+ *
+ * A shard whose worker cannot be reached, reports an error or stops
+ * answering part way is sent to the next worker, and a worker that failed is
+ * only tried again for the rest of the run once all others have failed too.
+ * If no worker can decide a shard, it is decided in this process against
+ * {@code database} and {@code marketingInfo}, for the catalog listed at the
+ * start of the run, so a run completes as long as the coordinator does.
+ * Shards decided here may run concurrently, so both must then be
+ * thread-safe.
+ */
+public final class PartitionedInventoryManager implements InventoryManager {
+
+    private final InventoryDatabase database;
+    private final MarketingInfo marketingInfo;
+    private final List<ShardTransport> workers;
+    private final int shards;
+    private final Executor executor;
+
+    /**
+     * Shards are sent from a pool of {@code shards} daemon threads, shared by
+     * every run of this manager, that end when idle.
+     */
+    public PartitionedInventoryManager(final InventoryDatabase database, final MarketingInfo marketingInfo,
+            final List<ShardTransport> workers, final int shards) {
+        this(database, marketingInfo, workers, shards, coordinatorThreads(shards));
+    }
+
+    /**
+     * Shards are sent from {@code executor}, one task per shard, each
+     * waiting on its worker; a run takes as long as its shards do at the
+     * executor's parallelism.
+     */
+    public PartitionedInventoryManager(final InventoryDatabase database, final MarketingInfo marketingInfo,
+            final List<ShardTransport> workers, final int shards, final Executor executor) {
+        if (shards < 1)
+            throw new IllegalArgumentException("shards must be positive: " + shards);
+        this.database = database;
+        this.marketingInfo = marketingInfo;
+        this.workers = new ArrayList<>(workers);
+        this.shards = shards;
+        this.executor = executor;
+    }
+
+    private static Executor coordinatorThreads(final int shards) {
+        if (shards < 1)
+            throw new IllegalArgumentException("shards must be positive: " + shards);
+        final ThreadPoolExecutor threads = new ThreadPoolExecutor(shards, shards, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            final Thread thread = new Thread(task, "shard-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        threads.allowCoreThreadTimeOut(true);
+        return threads;
+    }
+
+    /**
+     * Every shard is decided before the stream is returned.
+     */
+    @Override
+    public Stream<Order> streamOrders(final LocalDate today) {
+        return getOrders(today).stream();
+    }
+
+    @Override
+    public List<Order> getOrders(final LocalDate today) {
+        final List<Item> items = database.stockItems();
+        final int catalogHash = Shards.catalogHash(items);
+        final Set<ShardTransport> failed = ConcurrentHashMap.newKeySet();
+        final List<CompletableFuture<ShardResult>> running = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            final ShardRequest request = new ShardRequest(today, shard, shards, items.size(), catalogHash);
+            running.add(CompletableFuture.supplyAsync(() -> run(request, items, failed), executor));
+        }
+        final List<ShardResult> results = running.stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+        final List<RequiredOnHand> changes = new ArrayList<>();
+        for (final ShardResult result : results) {
+            for (int i = 0; i < result.changes(); i++) {
+                changes.add(new RequiredOnHand(Shards.at(items, result.changeKey(i)), result.changeWarehouse(i), result.changeAmount(i)));
+            }
+        }
+        final List<Order> orders = merge(items, results);
+        if (!changes.isEmpty())
+            database.setRequiredOnHand(changes);
+        return orders;
+    }
+
+    private ShardResult run(final ShardRequest request, final List<Item> items, final Set<ShardTransport> failed) {
+        for (final boolean retryFailed : new boolean[] { false, true }) {
+            for (int attempt = 0; attempt < workers.size(); attempt++) {
+                final ShardTransport worker = workers.get((request.shard + attempt) % workers.size());
+                if (failed.contains(worker) != retryFailed)
+                    continue;
+                try {
+                    final ShardResult result = worker.run(request);
+                    failed.remove(worker);
+                    return result;
+                } catch (final IOException | IllegalStateException e) {
+                    // unreachable, failed, or refused the shard for reading another catalog
+                    failed.add(worker);
+                }
+            }
+        }
+        return new ShardWorker(database, marketingInfo).run(request, items);
+    }
+
+    /**
+     * Sorts orders warehouse by warehouse, then by the item's place in the
+     * catalog, as {@link com.cjpowered.learn.inventory.ace.AceInventoryManager}
+     * lists them.
+     */
+    private static List<Order> merge(final List<Item> items, final List<ShardResult> results) {
+        final Warehouse[] warehouses = Warehouse.values();
+        int total = 0;
+        final int[] counts = new int[warehouses.length];
+        for (final ShardResult result : results) {
+            total += result.orders();
+            for (int i = 0; i < result.orders(); i++) {
+                counts[result.orderWarehouse(i).ordinal()]++;
+            }
+        }
+        final long[][] sorted = new long[warehouses.length][];
+        for (int w = 0; w < warehouses.length; w++) {
+            sorted[w] = new long[counts[w]];
+        }
+        Arrays.fill(counts, 0);
+        final int[] keys = new int[total];
+        final int[] quantities = new int[total];
+        int entry = 0;
+        for (final ShardResult result : results) {
+            for (int i = 0; i < result.orders(); i++) {
+                final int w = result.orderWarehouse(i).ordinal();
+                keys[entry] = result.orderKey(i);
+                quantities[entry] = result.orderQuantity(i);
+                Shards.checkKey(keys[entry], items.size());
+                sorted[w][counts[w]++] = (long) keys[entry] << 32 | entry;
+                entry++;
+            }
+        }
+
+        final List<Order> orders = new ArrayList<>(total);
+        for (int w = 0; w < warehouses.length; w++) {
+            Arrays.sort(sorted[w]);
+            for (final long ranked : sorted[w]) {
+                final int e = (int) ranked;
+                orders.add(new Order(items.get(keys[e]), quantities[e], warehouses[w]));
+            }
+        }
+        return orders;
+    }
+
+}
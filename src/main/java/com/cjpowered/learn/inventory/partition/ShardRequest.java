@@ -0,0 +1,79 @@
+package com.cjpowered.learn.inventory.partition;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.cjpowered.learn.inventory.Item;
+
+/**
+ * Work for one shard of an order run: decide the orders of the pairs
+ * {@link Shards#of} assigns to {@code shard}.
+ */
+public final class ShardRequest {
+
+    /**
+     * effective day of the run
+     */
+    public final LocalDate date;
+
+    /**
+     * shard to decide, from 0 to {@code shards - 1}
+     */
+    public final int shard;
+
+    /**
+     * number of shards the run is split into
+     */
+    public final int shards;
+
+    /**
+     * number of stock items the coordinator lists
+     */
+    public final int catalogSize;
+
+    /**
+     * hash of the coordinator's stock items, so a worker reading another
+     * catalog of the same size refuses the shard rather than deciding it
+     */
+    public final int catalogHash;
+
+    public ShardRequest(final LocalDate date, final int shard, final int shards, final int catalogSize, final int catalogHash) {
+        Shards.checkShard(shard, shards);
+        if (catalogSize < 0)
+            throw new IllegalArgumentException("negative catalog size " + catalogSize);
+        this.date = date;
+        this.shard = shard;
+        this.shards = shards;
+        this.catalogSize = catalogSize;
+        this.catalogHash = catalogHash;
+    }
+
+    /**
+     * A request against the given catalog, which the worker must list alike.
+     */
+    public static ShardRequest of(final LocalDate date, final int shard, final int shards, final List<Item> items) {
+        return new ShardRequest(date, shard, shards, items.size(), Shards.catalogHash(items));
+    }
+
+    /**
+     * @throws IllegalStateException
+     *             if {@code items} is not the catalog the request was made
+     *             against
+     */
+    void checkCatalog(final List<Item> items) {
+        if (items.size() != catalogSize || Shards.catalogHash(items) != catalogHash)
+            throw new IllegalStateException("worker lists " + items.size() + " stock items, hash " + Shards.catalogHash(items)
+                    + ", but the coordinator lists " + catalogSize + ", hash " + catalogHash + "; do the processes read the same catalog?");
+    }
+
+    @Override
+    public String toString() {
+        return "ShardRequest{" +
+                "date=" + date +
+                ", shard=" + shard +
+                ", shards=" + shards +
+                ", catalogSize=" + catalogSize +
+                ", catalogHash=" + catalogHash +
+                '}';
+    }
+}
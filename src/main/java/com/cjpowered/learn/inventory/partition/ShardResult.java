@@ -0,0 +1,106 @@
+package com.cjpowered.learn.inventory.partition;
+
+import java.util.Arrays;
+
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Orders decided for one shard, and the stock level changes the rules asked
+ * for while deciding them, with items identified by key (see
+ * {@link Shards}). The changes are not yet written; the coordinator writes
+ * them once every shard has succeeded, so a shard can be retried elsewhere
+ * without its changes being applied twice.
+ */
+public final class ShardResult {
+
+    private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+    private final Columns orders;
+    private final Columns changes;
+
+    private ShardResult(final Columns orders, final Columns changes) {
+        this.orders = orders;
+        this.changes = changes;
+    }
+
+    public int orders() {
+        return orders.size;
+    }
+
+    public int orderKey(final int index) {
+        return orders.keys[orders.check(index)];
+    }
+
+    public Warehouse orderWarehouse(final int index) {
+        return WAREHOUSES[orders.warehouses[orders.check(index)]];
+    }
+
+    public int orderQuantity(final int index) {
+        return orders.values[orders.check(index)];
+    }
+
+    public int changes() {
+        return changes.size;
+    }
+
+    public int changeKey(final int index) {
+        return changes.keys[changes.check(index)];
+    }
+
+    public Warehouse changeWarehouse(final int index) {
+        return WAREHOUSES[changes.warehouses[changes.check(index)]];
+    }
+
+    public int changeAmount(final int index) {
+        return changes.values[changes.check(index)];
+    }
+
+    /**
+     * Collects a shard's orders and changes. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private final Columns orders = new Columns();
+        private final Columns changes = new Columns();
+
+        public Builder order(final int key, final Warehouse warehouse, final int quantity) {
+            orders.add(key, warehouse, quantity);
+            return this;
+        }
+
+        public Builder change(final int key, final Warehouse warehouse, final int amount) {
+            changes.add(key, warehouse, amount);
+            return this;
+        }
+
+        public ShardResult build() {
+            return new ShardResult(orders, changes);
+        }
+    }
+
+    private static final class Columns {
+
+        int size;
+        int[] keys = new int[16];
+        byte[] warehouses = new byte[16];
+        int[] values = new int[16];
+
+        void add(final int key, final Warehouse warehouse, final int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                warehouses = Arrays.copyOf(warehouses, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            warehouses[size] = (byte) warehouse.ordinal();
+            values[size] = value;
+            size++;
+        }
+
+        int check(final int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("entry " + index + " of " + size);
+            return index;
+        }
+    }
+}
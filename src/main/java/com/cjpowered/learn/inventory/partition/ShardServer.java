@@ -0,0 +1,90 @@
+package com.cjpowered.learn.inventory.partition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Worker end of {@link SocketShardTransport}: accepts connections on a
+ * loopback port and answers each request with a {@link ShardWorker}.
+ * Requests are served concurrently, so the worker's database and marketing
+ * service must be thread-safe.
+ */
+public final class ShardServer implements AutoCloseable {
+
+    private final ShardWorker worker;
+    private final ServerSocket socket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(task -> {
+        final Thread thread = new Thread(task, "shard-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts listening at once.
+     *
+     * @param port
+     *            port on the loopback address, 0 for any free port
+     */
+    public ShardServer(final ShardWorker worker, final int port) {
+        this.worker = worker;
+        try {
+            this.socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        connections.execute(this::accept);
+    }
+
+    public int port() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections; requests in progress finish.
+     */
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (final IOException e) {
+            // already closed
+        }
+        connections.shutdown();
+    }
+
+    private void accept() {
+        while (!socket.isClosed()) {
+            try {
+                final Socket connection = socket.accept();
+                connections.execute(() -> serve(connection));
+            } catch (final IOException e) {
+                // closed, or a connection failed before it was accepted
+            }
+        }
+    }
+
+    private void serve(final Socket connection) {
+        try (Socket open = connection) {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(open.getOutputStream()));
+            final ShardResult result;
+            try {
+                result = worker.run(Wire.readRequest(new DataInputStream(new BufferedInputStream(open.getInputStream()))));
+            } catch (final RuntimeException e) {
+                Wire.writeError(out, e.toString());
+                return;
+            }
+            Wire.writeResult(out, result);
+        } catch (final IOException e) {
+            // the coordinator gave up on this connection and retries elsewhere
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.cjpowered.learn.inventory.partition;
+
+import java.io.IOException;
+
+/**
+ * Way of getting a shard decided by a worker, in this JVM or another.
+ */
+public interface ShardTransport {
+
+    /**
+     * Decide one shard. Must not write to the database.
+     *
+     * @throws IOException
+     *             if the worker could not be reached, failed, or stopped
+     *             answering part way; the shard may be retried elsewhere
+     */
+    ShardResult run(ShardRequest request) throws IOException;
+
+}
@@ -0,0 +1,144 @@
+package com.cjpowered.learn.inventory.partition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemRegistry;
+import com.cjpowered.learn.inventory.Schedule;
+import com.cjpowered.learn.inventory.StockSnapshot;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.CachingMarketingInfo;
+import com.cjpowered.learn.marketing.MarketingInfo;
+
+/**
+ * Runs the reorder rules for one shard against this process's database and
+ * marketing service: only the stock of items with a pair in the shard is
+ * read, and stock level changes are returned rather than written. A request
+ * made against a catalog other than the one this process lists is refused
+ * with an {@link IllegalStateException}.
+ *
+ * Serves {@link ShardServer} in worker processes, and the coordinator
+ * directly when no worker can take a shard.
+ */
+public final class ShardWorker implements ShardTransport {
+
+    private final InventoryDatabase database;
+    private final MarketingInfo marketingInfo;
+
+    public ShardWorker(final InventoryDatabase database, final MarketingInfo marketingInfo) {
+        this.database = database;
+        this.marketingInfo = marketingInfo;
+    }
+
+    @Override
+    public ShardResult run(final ShardRequest request) {
+        final InventoryDatabase view = database.snapshot();
+        final List<Item> stockItems = view.stockItems();
+        request.checkCatalog(stockItems);
+        return run(request, view, stockItems);
+    }
+
+    /**
+     * Decide the shard for the catalog the coordinator listed, as it does
+     * itself when no worker can take the shard.
+     */
+    ShardResult run(final ShardRequest request, final List<Item> stockItems) {
+        return run(request, database.snapshot(), stockItems);
+    }
+
+    private ShardResult run(final ShardRequest request, final InventoryDatabase view, final List<Item> stockItems) {
+        final Map<Schedule, Boolean> canOrder = new HashMap<>();
+        final List<Item> items = new ArrayList<>();
+        final int[] keys = new int[stockItems.size()];
+        for (int key = 0; key < stockItems.size(); key++) {
+            final Item item = stockItems.get(key);
+            if (Shards.touches(key, request.shard, request.shards)
+                    && canOrder.computeIfAbsent(item.schedule(), schedule -> schedule.canOrderToday(request.date))) {
+                keys[items.size()] = key;
+                items.add(item);
+            }
+        }
+
+        final ItemRegistry registry = new ItemRegistry(items);
+        final StockSnapshot stock = view.stockSnapshot(registry.items());
+        final MarketingInfo marketing = new CachingMarketingInfo(marketingInfo);
+        marketing.itemsOnSale(registry.items(), request.date);
+        final ShardResult.Builder result = new ShardResult.Builder();
+        final InventoryDatabase changes = new Recording(database, registry, keys, result);
+
+        for (final Warehouse warehouse : Warehouse.values()) {
+            for (int id = 0; id < registry.size(); id++) {
+                final int key = keys[id];
+                final Item item = registry.item(id);
+                if (!item.stocks(warehouse) || Shards.of(key, warehouse, request.shards) != request.shard)
+                    continue;
+                final int quantity = item.orderQuantity(request.date, stock.onHand(id, warehouse), stock.onOrder(id, warehouse), changes, marketing, warehouse);
+                if (quantity != 0)
+                    result.order(key, warehouse, quantity);
+            }
+        }
+        return result.build();
+    }
+
+    /**
+     * Reads pass through; stock level changes are added to the result by
+     * item key instead of being written.
+     */
+    private static final class Recording implements InventoryDatabase {
+
+        private final InventoryDatabase database;
+        private final ItemRegistry registry;
+        private final int[] keys;
+        private final ShardResult.Builder result;
+
+        Recording(final InventoryDatabase database, final ItemRegistry registry, final int[] keys, final ShardResult.Builder result) {
+            this.database = database;
+            this.registry = registry;
+            this.keys = keys;
+            this.result = result;
+        }
+
+        @Override
+        public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+            result.change(keys[registry.id(item)], warehouse, newAmount);
+        }
+
+        @Override
+        public List<Item> stockItems() {
+            return database.stockItems();
+        }
+
+        @Override
+        public int onHand(final Item item, final Warehouse warehouse) {
+            return database.onHand(item, warehouse);
+        }
+
+        @Override
+        public int onOrder(final Item item, final Warehouse warehouse) {
+            return database.onOrder(item, warehouse);
+        }
+
+        @Override
+        @Deprecated
+        public int onHand(final Item item) {
+            return database.onHand(item);
+        }
+
+        @Override
+        @Deprecated
+        public int onOrder(final Item item) {
+            return database.onOrder(item);
+        }
+
+        @Override
+        @Deprecated
+        public void setRequiredOnHand(final Item item, final int newAmount) {
+            setRequiredOnHand(item, Warehouse.home(), newAmount);
+        }
+    }
+
+}
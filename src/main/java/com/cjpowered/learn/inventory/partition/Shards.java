@@ -0,0 +1,94 @@
+package com.cjpowered.learn.inventory.partition;
+
+import java.util.List;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemColumns;
+import com.cjpowered.learn.inventory.ItemRegistry;
+import com.cjpowered.learn.inventory.RuleSettings;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Assignment of item and warehouse pairs to shards. An item's key is its
+ * position in {@link InventoryDatabase#stockItems()}, which every process
+ * reading the same database sees alike, so the assignment is the same in
+ * every JVM.
+ */
+public final class Shards {
+
+    private Shards() {
+    }
+
+    /**
+     * @param key
+     *            position of the item in the stock item list
+     *
+     * @return shard of the pair, from 0 to {@code shards - 1}
+     */
+    public static int of(final int key, final Warehouse warehouse, final int shards) {
+        // spread neighbouring keys, which often share a schedule, over shards
+        int h = key * Warehouse.values().length + warehouse.ordinal();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, shards);
+    }
+
+    /**
+     * @return whether any warehouse's pair of the item belongs to the shard
+     */
+    static boolean touches(final int key, final int shard, final int shards) {
+        for (final Warehouse warehouse : Warehouse.values()) {
+            if (of(key, warehouse, shards) == shard)
+                return true;
+        }
+        return false;
+    }
+
+    static void checkShard(final int shard, final int shards) {
+        if (shards < 1 || shard < 0 || shard >= shards)
+            throw new IllegalArgumentException("no shard " + shard + " of " + shards);
+    }
+
+    /**
+     * Hash of what every process can tell about each item in order: its
+     * class, its schedule's class, its target in each warehouse, its bunch
+     * size, its season and its {@link RuleSettings}. Catalogs that differ in
+     * any of those, e.g. after a run raised a target, or in order, almost
+     * surely hash apart.
+     *
+     * @throws IllegalArgumentException
+     *             if an item is neither a
+     *             {@link com.cjpowered.learn.inventory.StockedItem} nor a
+     *             {@link com.cjpowered.learn.inventory.SeasonalItem}
+     */
+    static int catalogHash(final List<Item> items) {
+        final ItemColumns columns = new ItemColumns(new ItemRegistry(items));
+        int h = 1;
+        for (int id = 0; id < items.size(); id++) {
+            final Item item = items.get(id);
+            h = 31 * h + item.getClass().getName().hashCode();
+            h = 31 * h + item.schedule().getClass().getName().hashCode();
+            for (final Warehouse warehouse : Warehouse.values()) {
+                h = 31 * h + columns.target(id, warehouse);
+            }
+            h = 31 * h + columns.bunch(id);
+            h = 31 * h + (columns.season(id) == null ? -1 : columns.season(id).ordinal());
+            h = 31 * h + columns.settings(id).hashCode();
+        }
+        return h;
+    }
+
+    static void checkKey(final int key, final int size) {
+        if (key < 0 || key >= size)
+            throw new IllegalStateException("no item with key " + key + " among " + size + "; do the processes read the same catalog?");
+    }
+
+    static <T> T at(final List<T> list, final int key) {
+        checkKey(key, list.size());
+        return list.get(key);
+    }
+}
@@ -0,0 +1,44 @@
+package com.cjpowered.learn.inventory.partition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+
+/**
+ * Sends each shard to a {@link ShardServer} over a new TCP connection.
+ */
+public final class SocketShardTransport implements ShardTransport {
+
+    private final InetSocketAddress address;
+    private final int timeoutMillis;
+
+    /**
+     * @param timeout
+     *            longest wait to connect, and between bytes of the response;
+     *            a worker silent for longer is taken to have died
+     */
+    public SocketShardTransport(final InetSocketAddress address, final Duration timeout) {
+        this.address = address;
+        this.timeoutMillis = (int) Math.min(Integer.MAX_VALUE, Math.max(1, timeout.toMillis()));
+    }
+
+    @Override
+    public ShardResult run(final ShardRequest request) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(address, timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            Wire.writeRequest(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())), request);
+            return Wire.readResult(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SocketShardTransport{" + address + '}';
+    }
+}
@@ -0,0 +1,127 @@
+package com.cjpowered.learn.inventory.partition;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Binary protocol between {@link SocketShardTransport} and
+ * {@link ShardServer}, one request per connection.
+ *
+ * <pre>
+ * request   magic int, epoch day long, shard int, shards int,
+ *           catalog size int, catalog hash int
+ * response  any number of
+ *             ORDER  key int, warehouse byte, quantity int
+ *             CHANGE key int, warehouse byte, amount int
+ *           then
+ *             END    order count int, change count int
+ *           or
+ *             ERROR  message UTF
+ * </pre>
+ *
+ * A response that stops before END or ERROR means the worker died.
+ */
+final class Wire {
+
+    private static final int MAGIC = 0x53485232;
+    private static final byte ORDER = 1;
+    private static final byte CHANGE = 2;
+    private static final byte END = 3;
+    private static final byte ERROR = 4;
+
+    private Wire() {
+    }
+
+    static void writeRequest(final DataOutputStream out, final ShardRequest request) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeLong(request.date.toEpochDay());
+        out.writeInt(request.shard);
+        out.writeInt(request.shards);
+        out.writeInt(request.catalogSize);
+        out.writeInt(request.catalogHash);
+        out.flush();
+    }
+
+    static ShardRequest readRequest(final DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new IOException("not a shard request");
+        final LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        final int shard = in.readInt();
+        final int shards = in.readInt();
+        final int catalogSize = in.readInt();
+        final int catalogHash = in.readInt();
+        try {
+            return new ShardRequest(date, shard, shards, catalogSize, catalogHash);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    static void writeResult(final DataOutputStream out, final ShardResult result) throws IOException {
+        for (int i = 0; i < result.orders(); i++) {
+            out.writeByte(ORDER);
+            out.writeInt(result.orderKey(i));
+            out.writeByte(result.orderWarehouse(i).ordinal());
+            out.writeInt(result.orderQuantity(i));
+        }
+        for (int i = 0; i < result.changes(); i++) {
+            out.writeByte(CHANGE);
+            out.writeInt(result.changeKey(i));
+            out.writeByte(result.changeWarehouse(i).ordinal());
+            out.writeInt(result.changeAmount(i));
+        }
+        out.writeByte(END);
+        out.writeInt(result.orders());
+        out.writeInt(result.changes());
+        out.flush();
+    }
+
+    static void writeError(final DataOutputStream out, final String message) throws IOException {
+        out.writeByte(ERROR);
+        out.writeUTF(message == null ? "" : message);
+        out.flush();
+    }
+
+    /**
+     * @throws IOException
+     *             if the response is cut short, inconsistent, or reports a
+     *             worker error
+     */
+    static ShardResult readResult(final DataInputStream in) throws IOException {
+        final Warehouse[] warehouses = Warehouse.values();
+        final ShardResult.Builder result = new ShardResult.Builder();
+        int orders = 0;
+        int changes = 0;
+        while (true) {
+            final byte tag = in.readByte();
+            switch (tag) {
+            case ORDER:
+                result.order(in.readInt(), warehouse(warehouses, in.readByte()), in.readInt());
+                orders++;
+                break;
+            case CHANGE:
+                result.change(in.readInt(), warehouse(warehouses, in.readByte()), in.readInt());
+                changes++;
+                break;
+            case END:
+                if (in.readInt() != orders || in.readInt() != changes)
+                    throw new IOException("shard response counts do not match its entries");
+                return result.build();
+            case ERROR:
+                throw new IOException("worker failed: " + in.readUTF());
+            default:
+                throw new IOException("unexpected shard response entry " + tag);
+            }
+        }
+    }
+
+    private static Warehouse warehouse(final Warehouse[] warehouses, final byte ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= warehouses.length)
+            throw new IOException("no warehouse " + ordinal);
+        return warehouses[ordinal];
+    }
+}
@@ -0,0 +1,91 @@
+package com.cjpowered.learn.marketing;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.cjpowered.learn.inventory.Item;
+
+/**
+ * Remembers every answer from another {@link MarketingInfo}, so each season
+ * and each on-sale status is fetched once for the life of this instance.
+ * Intended to live for one order run; marketing changes made afterwards are
+ * not seen.
+ *
+ * Safe to share between threads. The wrapped instance is called outside any
+ * lock, so threads missing the same answer at once may each fetch it; the
+ * first answer stored is the one every caller gets.
+ */
+public final class CachingMarketingInfo implements MarketingInfo {
+
+    private final MarketingInfo marketingInfo;
+    private final Map<LocalDate, Season> seasons = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Map<Item, Boolean>> sales = new ConcurrentHashMap<>();
+
+    public CachingMarketingInfo(final MarketingInfo marketingInfo) {
+        this.marketingInfo = marketingInfo;
+    }
+
+    /**
+     * Cached answers are read without allocating.
+     */
+    @Override
+    public boolean onSale(final Item item, final LocalDate when) {
+        final Map<Item, Boolean> known = sales(when);
+        final Boolean cached = known.get(item);
+        if (cached != null)
+            return cached;
+        final Boolean fetched = marketingInfo.onSale(item, when);
+        final Boolean raced = known.putIfAbsent(item, fetched);
+        return raced != null ? raced : fetched;
+    }
+
+    @Override
+    public Season season(final LocalDate when) {
+        final Season cached = seasons.get(when);
+        if (cached != null)
+            return cached;
+        final Season fetched = marketingInfo.season(when);
+        if (fetched == null)
+            return null;
+        final Season raced = seasons.putIfAbsent(when, fetched);
+        return raced != null ? raced : fetched;
+    }
+
+    /**
+     * Items not yet cached for {@code when} are fetched with a single bulk
+     * call to the wrapped instance.
+     */
+    @Override
+    public Set<Item> itemsOnSale(final Collection<Item> items, final LocalDate when) {
+        final Map<Item, Boolean> known = sales(when);
+        final List<Item> unknown = new ArrayList<>();
+        for (final Item item : items) {
+            if (!known.containsKey(item))
+                unknown.add(item);
+        }
+        if (!unknown.isEmpty()) {
+            final Set<Item> fetched = marketingInfo.itemsOnSale(unknown, when);
+            for (final Item item : unknown) {
+                known.putIfAbsent(item, fetched.contains(item));
+            }
+        }
+        final Set<Item> onSale = new HashSet<>();
+        for (final Item item : items) {
+            if (known.get(item))
+                onSale.add(item);
+        }
+        return onSale;
+    }
+
+    private Map<Item, Boolean> sales(final LocalDate when) {
+        final Map<Item, Boolean> cached = sales.get(when);
+        return cached != null ? cached : sales.computeIfAbsent(when, w -> new ConcurrentHashMap<>());
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.cjpowered.learn.marketing;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.metrics.CallMetrics;
+
+/**
+ * Counts calls to another {@link MarketingInfo} and records their latencies,
+ * per method. Calls that throw are recorded too.
+ */
+public final class InstrumentedMarketingInfo implements MarketingInfo {
+
+    public static final String ON_SALE = "onSale";
+    public static final String SEASON = "season";
+    public static final String ITEMS_ON_SALE = "itemsOnSale";
+
+    private final MarketingInfo marketingInfo;
+    private final CallMetrics metrics = new CallMetrics();
+
+    public InstrumentedMarketingInfo(final MarketingInfo marketingInfo) {
+        this.marketingInfo = marketingInfo;
+    }
+
+    /**
+     * @return latencies recorded so far, by method name
+     */
+    public CallMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public boolean onSale(final Item item, final LocalDate when) {
+        final long start = System.nanoTime();
+        try {
+            return marketingInfo.onSale(item, when);
+        } finally {
+            metrics.record(ON_SALE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Season season(final LocalDate when) {
+        final long start = System.nanoTime();
+        try {
+            return marketingInfo.season(when);
+        } finally {
+            metrics.record(SEASON, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Set<Item> itemsOnSale(final Collection<Item> items, final LocalDate when) {
+        final long start = System.nanoTime();
+        try {
+            return marketingInfo.itemsOnSale(items, when);
+        } finally {
+            metrics.record(ITEMS_ON_SALE, System.nanoTime() - start);
+        }
+    }
+
+}
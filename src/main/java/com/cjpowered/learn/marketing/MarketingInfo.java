@@ -1,6 +1,9 @@
 package com.cjpowered.learn.marketing;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 import com.cjpowered.learn.inventory.InventoryDatabase;
 import com.cjpowered.learn.inventory.Item;
@@ -29,4 +32,27 @@ public interface MarketingInfo {
      */
     Season season(LocalDate when);
 
+    /**
+     * Fetch on-sale status for many items at once. Implementations backed by
+     * a remote service should override this to answer in as few calls as
+     * they can; the default asks {@link #onSale(Item, LocalDate)} for each
+     * item.
+     *
+     * @param items
+     *            items to query. Assumes item equality as defined by
+     *            {@link InventoryDatabase}.
+     * @param when
+     *            the date to check
+     *
+     * @return those of {@code items} that are on sale
+     */
+    default Set<Item> itemsOnSale(final Collection<Item> items, final LocalDate when) {
+        final Set<Item> onSale = new HashSet<>();
+        for (final Item item : items) {
+            if (onSale(item, when))
+                onSale.add(item);
+        }
+        return onSale;
+    }
+
 }
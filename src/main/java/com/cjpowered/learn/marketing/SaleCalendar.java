@@ -0,0 +1,232 @@
+package com.cjpowered.learn.marketing;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.cjpowered.learn.inventory.Item;
+
+/**
+ * Every sale window of every item, loaded once and indexed for lookups by
+ * item and by date.
+ *
+ * Each item's windows are merged where they overlap or touch and kept as
+ * sorted arrays of epoch days, so whether an item is on sale on a date is a
+ * binary search. All windows are also sorted by start in one array laid out
+ * as an implicit interval tree, each node holding the latest end below it,
+ * so the items on sale on a date are found without visiting windows that
+ * ended before it or start after it.
+ *
+ * Items are matched by {@link Item#equals(Object)}. Immutable.
+ */
+public final class SaleCalendar {
+
+    /**
+     * Days an item is on sale, both ends included.
+     */
+    public static final class Window {
+
+        public final Item item;
+
+        /**
+         * first day of the sale
+         */
+        public final LocalDate first;
+
+        /**
+         * last day of the sale
+         */
+        public final LocalDate last;
+
+        public Window(final Item item, final LocalDate first, final LocalDate last) {
+            if (last.isBefore(first))
+                throw new IllegalArgumentException("sale ends " + last + " before it starts " + first);
+            this.item = item;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj)
+                return true;
+            else if (obj instanceof Window)
+                return this.item.equals(((Window) obj).item) && this.first.equals(((Window) obj).first)
+                        && this.last.equals(((Window) obj).last);
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.item, this.first, this.last);
+        }
+
+        @Override
+        public String toString() {
+            return "Window{" +
+                    "item=" + item +
+                    ", first=" + first +
+                    ", last=" + last +
+                    '}';
+        }
+    }
+
+    private final Map<Item, Integer> slots = new HashMap<>();
+    private final Item[] items;
+
+    /**
+     * per item slot, where its windows start in {@link #firsts} and
+     * {@link #lasts}; one extra entry ends the last item's windows
+     */
+    private final int[] offsets;
+    private final int[] firsts;
+    private final int[] lasts;
+
+    /**
+     * all windows, sorted by first day: item slot, first and last day, and
+     * the latest last day of the implicit subtree each position roots
+     */
+    private final int[] treeSlots;
+    private final int[] treeFirsts;
+    private final int[] treeLasts;
+    private final int[] treeMaxLasts;
+
+    public SaleCalendar(final Collection<Window> windows) {
+        final Map<Item, List<Window>> byItem = new LinkedHashMap<>();
+        for (final Window window : windows) {
+            byItem.computeIfAbsent(window.item, item -> new ArrayList<>()).add(window);
+        }
+        this.items = new Item[byItem.size()];
+        this.offsets = new int[byItem.size() + 1];
+        final List<int[]> merged = new ArrayList<>();
+        int slot = 0;
+        for (final Map.Entry<Item, List<Window>> item : byItem.entrySet()) {
+            slots.put(item.getKey(), slot);
+            items[slot] = item.getKey();
+            offsets[slot] = merged.size();
+            final List<Window> sorted = item.getValue();
+            sorted.sort(Comparator.comparing(window -> window.first));
+            int[] current = null;
+            for (final Window window : sorted) {
+                final int first = Math.toIntExact(window.first.toEpochDay());
+                final int last = Math.toIntExact(window.last.toEpochDay());
+                if (current != null && first <= current[2] + 1) {
+                    current[2] = Math.max(current[2], last);
+                } else {
+                    current = new int[] { slot, first, last };
+                    merged.add(current);
+                }
+            }
+            slot++;
+        }
+        offsets[slot] = merged.size();
+
+        final int count = merged.size();
+        this.firsts = new int[count];
+        this.lasts = new int[count];
+        for (int i = 0; i < count; i++) {
+            firsts[i] = merged.get(i)[1];
+            lasts[i] = merged.get(i)[2];
+        }
+        merged.sort(Comparator.comparingInt(window -> window[1]));
+        this.treeSlots = new int[count];
+        this.treeFirsts = new int[count];
+        this.treeLasts = new int[count];
+        this.treeMaxLasts = new int[count];
+        for (int i = 0; i < count; i++) {
+            treeSlots[i] = merged.get(i)[0];
+            treeFirsts[i] = merged.get(i)[1];
+            treeLasts[i] = merged.get(i)[2];
+        }
+        maxLast(0, count);
+    }
+
+    /**
+     * O(log n) in the item's windows.
+     */
+    public boolean onSale(final Item item, final LocalDate when) {
+        final Integer slot = slots.get(item);
+        if (slot == null)
+            return false;
+        final int day = Math.toIntExact(when.toEpochDay());
+        final int at = lastStartingBy(slot, day);
+        return at >= offsets[slot] && lasts[at] >= day;
+    }
+
+    /**
+     * @return every item on sale on {@code when}
+     */
+    public Set<Item> itemsOnSale(final LocalDate when) {
+        final Set<Item> onSale = new HashSet<>();
+        collect(0, treeFirsts.length, Math.toIntExact(when.toEpochDay()), onSale);
+        return onSale;
+    }
+
+    /**
+     * @return the days from {@code from} to {@code to}, both included, that
+     *         {@code item} is on sale, as a set bit at the day's distance from
+     *         {@code from}
+     */
+    public BitSet saleDays(final Item item, final LocalDate from, final LocalDate to) {
+        final BitSet days = new BitSet();
+        final Integer slot = slots.get(item);
+        if (slot == null || to.isBefore(from))
+            return days;
+        final int start = Math.toIntExact(from.toEpochDay());
+        final int end = Math.toIntExact(to.toEpochDay());
+        for (int at = Math.max(offsets[slot], lastStartingBy(slot, start)); at < offsets[slot + 1] && firsts[at] <= end; at++) {
+            if (lasts[at] >= start)
+                days.set(Math.max(firsts[at], start) - start, Math.min(lasts[at], end) - start + 1);
+        }
+        return days;
+    }
+
+    /**
+     * @return position of the item's last window starting on or before
+     *         {@code day}, one before its first window if none does
+     */
+    private int lastStartingBy(final int slot, final int day) {
+        int low = offsets[slot];
+        int high = offsets[slot + 1] - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (firsts[mid] <= day)
+                low = mid + 1;
+            else
+                high = mid - 1;
+        }
+        return high;
+    }
+
+    private int maxLast(final int from, final int to) {
+        if (from >= to)
+            return Integer.MIN_VALUE;
+        final int mid = (from + to) >>> 1;
+        treeMaxLasts[mid] = Math.max(treeLasts[mid], Math.max(maxLast(from, mid), maxLast(mid + 1, to)));
+        return treeMaxLasts[mid];
+    }
+
+    private void collect(final int from, final int to, final int day, final Set<Item> onSale) {
+        if (from >= to)
+            return;
+        final int mid = (from + to) >>> 1;
+        if (treeMaxLasts[mid] < day)
+            return;
+        collect(from, mid, day, onSale);
+        if (treeFirsts[mid] > day)
+            return;
+        if (treeLasts[mid] >= day)
+            onSale.add(items[treeSlots[mid]]);
+        collect(mid + 1, to, day, onSale);
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.cjpowered.learn.marketing;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.cjpowered.learn.inventory.Item;
+
+/**
+ * Answers sale questions from a {@link SaleCalendar} loaded up front, with
+ * no call per item or date, and seasons from another {@link MarketingInfo}.
+ */
+public final class SaleCalendarMarketingInfo implements MarketingInfo {
+
+    private final SaleCalendar sales;
+    private final MarketingInfo seasons;
+
+    public SaleCalendarMarketingInfo(final SaleCalendar sales, final MarketingInfo seasons) {
+        this.sales = sales;
+        this.seasons = seasons;
+    }
+
+    @Override
+    public boolean onSale(final Item item, final LocalDate when) {
+        return sales.onSale(item, when);
+    }
+
+    @Override
+    public Season season(final LocalDate when) {
+        return seasons.season(when);
+    }
+
+    /**
+     * Finds the items on sale on {@code when} in the calendar's date index,
+     * then keeps those asked about.
+     */
+    @Override
+    public Set<Item> itemsOnSale(final Collection<Item> items, final LocalDate when) {
+        final Set<Item> onSale = sales.itemsOnSale(when);
+        final Set<Item> asked = new HashSet<>();
+        for (final Item item : items) {
+            if (onSale.contains(item))
+                asked.add(item);
+        }
+        return asked;
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.cjpowered.learn.marketing;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.cjpowered.learn.inventory.Item;
+
+/**
+ * Answers {@link #season(LocalDate)} from a calendar of one byte per day,
+ * filled a year at a time from the season boundaries of that year and kept
+ * by year, so far-apart years cost only their own days. After a year's first
+ * lookup every date in it costs a map and an array read. Sale questions
+ * go straight to the wrapped instance.
+ *
+ * Boundaries are kept until {@link #refresh()} or {@link #refresh(int)} is
+ * called, e.g. when marketing announces new season dates. Safe to share
+ * between threads; loading and refreshing take a lock, lookups do not.
+ */
+public final class SeasonCalendarMarketingInfo implements MarketingInfo {
+
+    /**
+     * Where seasons begin in a year.
+     */
+    @FunctionalInterface
+    public interface Boundaries {
+
+        /**
+         * @return the season of January 1, keyed by that date, and the date
+         *         each later season of the year starts
+         */
+        NavigableMap<LocalDate, Season> seasonStarts(int year);
+
+        /**
+         * Boundaries found by asking {@code marketingInfo} the season of every
+         * day of the year, for services that cannot list them.
+         */
+        static Boundaries scanning(final MarketingInfo marketingInfo) {
+            return year -> {
+                final NavigableMap<LocalDate, Season> starts = new TreeMap<>();
+                Season previous = null;
+                for (LocalDate day = LocalDate.of(year, 1, 1); day.getYear() == year; day = day.plusDays(1)) {
+                    final Season season = marketingInfo.season(day);
+                    if (season != previous)
+                        starts.put(day, season);
+                    previous = season;
+                }
+                return starts;
+            };
+        }
+    }
+
+    private static final Season[] SEASONS = Season.values();
+
+    private final MarketingInfo marketingInfo;
+    private final Boundaries boundaries;
+    private volatile Calendar calendar = Calendar.EMPTY;
+
+    /**
+     * Fills each year by asking {@code marketingInfo} for every day of it.
+     */
+    public SeasonCalendarMarketingInfo(final MarketingInfo marketingInfo) {
+        this(marketingInfo, Boundaries.scanning(marketingInfo));
+    }
+
+    public SeasonCalendarMarketingInfo(final MarketingInfo marketingInfo, final Boundaries boundaries) {
+        this.marketingInfo = marketingInfo;
+        this.boundaries = boundaries;
+    }
+
+    @Override
+    public boolean onSale(final Item item, final LocalDate when) {
+        return marketingInfo.onSale(item, when);
+    }
+
+    @Override
+    public Set<Item> itemsOnSale(final Collection<Item> items, final LocalDate when) {
+        return marketingInfo.itemsOnSale(items, when);
+    }
+
+    /**
+     * @throws IllegalStateException
+     *             if the year's boundaries do not say which season January 1
+     *             is in
+     */
+    @Override
+    public Season season(final LocalDate when) {
+        final Season known = calendar.season(when);
+        return known != null ? known : load(when.getYear()).season(when);
+    }
+
+    /**
+     * Forget every year; each is fetched again on its next lookup.
+     */
+    public synchronized void refresh() {
+        calendar = Calendar.EMPTY;
+    }
+
+    /**
+     * Fetch {@code year} again now if it has been looked up before.
+     */
+    public synchronized void refresh(final int year) {
+        if (calendar.covers(year))
+            calendar = calendar.with(year, days(year));
+    }
+
+    private synchronized Calendar load(final int year) {
+        if (!calendar.covers(year))
+            calendar = calendar.with(year, days(year));
+        return calendar;
+    }
+
+    private byte[] days(final int year) {
+        final NavigableMap<LocalDate, Season> starts = boundaries.seasonStarts(year);
+        final LocalDate first = LocalDate.of(year, 1, 1);
+        final Map.Entry<LocalDate, Season> start = starts.floorEntry(first);
+        if (start == null)
+            throw new IllegalStateException("no season for " + first);
+        final byte[] days = new byte[Year.of(year).length()];
+        byte season = (byte) start.getValue().ordinal();
+        int day = 0;
+        for (final Map.Entry<LocalDate, Season> next : starts.tailMap(first, false).entrySet()) {
+            if (next.getKey().getYear() != year)
+                break;
+            final int until = next.getKey().getDayOfYear() - 1;
+            while (day < until) {
+                days[day++] = season;
+            }
+            season = (byte) next.getValue().ordinal();
+        }
+        while (day < days.length) {
+            days[day++] = season;
+        }
+        return days;
+    }
+
+    /**
+     * Seasons of the loaded years, one byte per day of each. Never changed
+     * once published.
+     */
+    private static final class Calendar {
+
+        static final Calendar EMPTY = new Calendar(Collections.emptyMap());
+
+        final Map<Integer, byte[]> years;
+
+        Calendar(final Map<Integer, byte[]> years) {
+            this.years = years;
+        }
+
+        Season season(final LocalDate when) {
+            final byte[] days = years.get(when.getYear());
+            return days == null ? null : SEASONS[days[when.getDayOfYear() - 1]];
+        }
+
+        boolean covers(final int year) {
+            return years.containsKey(year);
+        }
+
+        Calendar with(final int year, final byte[] days) {
+            final Map<Integer, byte[]> merged = new HashMap<>(years);
+            merged.put(year, days);
+            return new Calendar(merged);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.cjpowered.learn.marketing;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+
+import com.cjpowered.learn.inventory.Item;
+
+/**
+ * Makes a {@link MarketingInfo} that is not thread-safe usable from several
+ * threads by serializing every call on a single lock.
+ */
+public final class SynchronizedMarketingInfo implements MarketingInfo {
+
+    private final MarketingInfo marketingInfo;
+    private final Object lock = new Object();
+
+    public SynchronizedMarketingInfo(final MarketingInfo marketingInfo) {
+        this.marketingInfo = marketingInfo;
+    }
+
+    @Override
+    public boolean onSale(final Item item, final LocalDate when) {
+        synchronized (lock) {
+            return marketingInfo.onSale(item, when);
+        }
+    }
+
+    @Override
+    public Season season(final LocalDate when) {
+        synchronized (lock) {
+            return marketingInfo.season(when);
+        }
+    }
+
+    @Override
+    public Set<Item> itemsOnSale(final Collection<Item> items, final LocalDate when) {
+        synchronized (lock) {
+            return marketingInfo.itemsOnSale(items, when);
+        }
+    }
+
+}
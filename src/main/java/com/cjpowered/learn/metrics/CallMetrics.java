@@ -0,0 +1,65 @@
+package com.cjpowered.learn.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link LatencyHistogram} per named call, e.g. per method of an
+ * instrumented interface.
+ */
+public final class CallMetrics {
+
+    private final ConcurrentMap<String, LatencyHistogram> calls = new ConcurrentHashMap<>();
+
+    /**
+     * @param name
+     *            call that took {@code nanos}
+     */
+    public void record(final String name, final long nanos) {
+        LatencyHistogram histogram = calls.get(name);
+        if (histogram == null)
+            histogram = calls.computeIfAbsent(name, n -> new LatencyHistogram());
+        histogram.record(nanos);
+    }
+
+    /**
+     * @return latencies of every call recorded so far, by name
+     */
+    public Map<String, LatencyHistogram.Snapshot> snapshot() {
+        final Map<String, LatencyHistogram.Snapshot> snapshot = new TreeMap<>();
+        for (final Map.Entry<String, LatencyHistogram> call : calls.entrySet()) {
+            snapshot.put(call.getKey(), call.getValue().snapshot());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * @return latencies recorded between two {@link #snapshot()}s, by name
+     */
+    public static Map<String, LatencyHistogram.Snapshot> since(final Map<String, LatencyHistogram.Snapshot> later,
+            final Map<String, LatencyHistogram.Snapshot> earlier) {
+        final Map<String, LatencyHistogram.Snapshot> since = new TreeMap<>();
+        for (final Map.Entry<String, LatencyHistogram.Snapshot> call : later.entrySet()) {
+            final LatencyHistogram.Snapshot delta = call.getValue()
+                    .since(earlier.getOrDefault(call.getKey(), LatencyHistogram.Snapshot.EMPTY));
+            if (delta.count() > 0)
+                since.put(call.getKey(), delta);
+        }
+        return Collections.unmodifiableMap(since);
+    }
+
+    /**
+     * @return total time spent in all the calls of a snapshot
+     */
+    public static long totalNanos(final Map<String, LatencyHistogram.Snapshot> snapshot) {
+        long total = 0;
+        for (final LatencyHistogram.Snapshot call : snapshot.values()) {
+            total += call.totalNanos();
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.cjpowered.learn.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts calls and their latencies in power-of-two nanosecond buckets.
+ * Recording is lock-free and spreads contention across striped
+ * {@link LongAdder}s, so it can sit on hot paths shared by many threads.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(final long nanos) {
+        final long latency = Math.max(0, nanos);
+        buckets[bucket(latency)].increment();
+        totalNanos.add(latency);
+    }
+
+    /**
+     * Calls recorded while the snapshot is taken may be partly counted.
+     */
+    public Snapshot snapshot() {
+        final long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(counts, totalNanos.sum());
+    }
+
+    private static int bucket(final long nanos) {
+        return nanos == 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * Latencies recorded up to some moment.
+     */
+    public static final class Snapshot {
+
+        /**
+         * no calls at all
+         */
+        public static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0);
+
+        private final long[] buckets;
+        private final long count;
+        private final long totalNanos;
+
+        private Snapshot(final long[] buckets, final long totalNanos) {
+            this.buckets = buckets;
+            long count = 0;
+            for (final long bucket : buckets) {
+                count += bucket;
+            }
+            this.count = count;
+            this.totalNanos = totalNanos;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long totalNanos() {
+            return totalNanos;
+        }
+
+        public long meanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * @param quantile
+         *            between 0 and 1, e.g. 0.99
+         *
+         * @return upper bound of the latency bucket holding the quantile, at
+         *         most twice the true value
+         */
+        public long quantileNanos(final double quantile) {
+            final long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0)
+                    return (2L << i) - 1;
+            }
+            return 0;
+        }
+
+        public long maxNanos() {
+            return quantileNanos(1);
+        }
+
+        /**
+         * @return calls recorded after {@code earlier} was taken
+         */
+        public Snapshot since(final Snapshot earlier) {
+            final long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i] - earlier.buckets[i];
+            }
+            return new Snapshot(counts, totalNanos - earlier.totalNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + meanNanos() + "ns, p50<=" + quantileNanos(0.5) + "ns, p99<="
+                    + quantileNanos(0.99) + "ns, max<=" + maxNanos() + "ns";
+        }
+    }
+
+}
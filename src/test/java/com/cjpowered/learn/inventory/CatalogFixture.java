@@ -0,0 +1,81 @@
+package com.cjpowered.learn.inventory;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+
+/*
+ * Randomly generated catalog mixing every kind of item, schedule, warehouse
+ * spread and stock level, for checking that different ways of computing
+ * orders agree with each other.
+ */
+public class CatalogFixture {
+
+    public final List<Item> items = new ArrayList<>();
+    public final Table<Warehouse, Item, Integer> onHand = HashBasedTable.create();
+    public final Table<Warehouse, Item, Integer> onOrder = HashBasedTable.create();
+    public final Set<Item> onSale = new HashSet<>();
+
+    public CatalogFixture(final int size, final long seed) {
+        final Random random = new Random(seed);
+        final Season[] seasons = Season.values();
+        for (int i = 0; i < size; i++) {
+            final Schedule schedule = random.nextInt(4) == 0 ? new FirstOfTheMonth() : new AnyDay();
+            final Item item;
+            if (random.nextInt(3) == 0) {
+                final int bunch = 1 + random.nextInt(6);
+                item = random.nextBoolean()
+                        ? new StockedItem(random.nextInt(60), schedule, bunch)
+                        : new SeasonalItem(random.nextInt(60), seasons[random.nextInt(seasons.length)], schedule, bunch);
+            } else {
+                final Map<Warehouse, Integer> wantOnHand = new HashMap<>();
+                for (final Warehouse warehouse : Warehouse.values()) {
+                    if (random.nextBoolean())
+                        wantOnHand.put(warehouse, random.nextInt(60));
+                }
+                item = random.nextBoolean()
+                        ? new StockedItem(wantOnHand, schedule)
+                        : new SeasonalItem(wantOnHand, seasons[random.nextInt(seasons.length)], schedule);
+            }
+            items.add(item);
+            for (final Warehouse warehouse : Warehouse.values()) {
+                onHand.put(warehouse, item, random.nextInt(4) == 0 ? 0 : random.nextInt(70));
+                onOrder.put(warehouse, item, random.nextInt(3) == 0 ? random.nextInt(20) : 0);
+            }
+            if (random.nextInt(5) == 0)
+                onSale.add(item);
+        }
+    }
+
+    public InventoryDatabase database() {
+        return database(new HashMap<>());
+    }
+
+    public InventoryDatabase database(final Map<String, Integer> callCounter) {
+        return new FakeDatabase(onHand, onOrder, callCounter) {
+            @Override
+            public List<Item> stockItems() {
+                return new ArrayList<>(items);
+            }
+        };
+    }
+
+    public MarketingInfo marketing(final Season season) {
+        return new MarketingTemplate() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                return onSale.contains(item);
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                return season;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class DecisionLogTest {
+
+    @Test
+    public void everyPairOfTheCatalogGetsOneOutcome() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(500, 21);
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final DecisionLog log = new DecisionLog();
+        final LocalDate today = LocalDate.of(2016, 6, 17);
+
+        // when
+        final List<Order> orders = new AceInventoryManager(catalog.database(), mi).recordingDecisions(log).getOrders(today);
+
+        // then
+        final Map<Outcome, Long> counts = log.counts();
+        assertEquals(500L * Warehouse.values().length, counts.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(orders.size(), counts.get(Outcome.ORDERED).longValue());
+        for (final Outcome outcome : new Outcome[] { Outcome.NOT_STOCKED, Outcome.OFF_SCHEDULE, Outcome.AT_TARGET,
+                Outcome.ENOUGH_STOCK }) {
+            assertTrue(outcome.toString(), counts.get(outcome) > 0);
+        }
+        assertEquals(0, counts.get(Outcome.UNEXPLAINED).longValue());
+    }
+
+    @Test
+    public void everyModeCountsTheSame() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(300, 22);
+        final MarketingInfo mi = catalog.marketing(Season.Spring);
+        final LocalDate today = LocalDate.of(2016, 4, 1);
+        final DecisionLog sequential = new DecisionLog();
+        final DecisionLog batch = new DecisionLog();
+        final DecisionLog parallel = new DecisionLog();
+
+        // when
+        new AceInventoryManager(catalog.database(), mi).recordingDecisions(sequential).getOrders(today);
+        new AceInventoryManager(catalog.database(), mi).recordingDecisions(batch).getOrderBatch(today);
+        new AceInventoryManager(catalog.database(), mi, new ForkJoinPool(4)).recordingDecisions(parallel).getOrders(today);
+
+        // then
+        for (final Outcome outcome : Outcome.values()) {
+            for (final Warehouse warehouse : Warehouse.values()) {
+                for (final DecisionLog.Kind kind : DecisionLog.Kind.values()) {
+                    final long expected = sequential.count(outcome, warehouse, kind);
+                    assertEquals(expected, batch.count(outcome, warehouse, kind));
+                    assertEquals(expected, parallel.count(outcome, warehouse, kind));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void itemsExplainWhichRuleDecided() {
+        // given
+        final Warehouse home = Warehouse.home();
+        final Item stocked = new StockedItem(Collections.singletonMap(home, 30), new AnyDay());
+        final Item bunched = new StockedItem(Collections.singletonMap(home, 10), new AnyDay(), 6);
+        final Item seasonal = new SeasonalItem(Collections.singletonMap(home, 30), Season.Summer, new FirstOfTheMonth());
+        final MarketingInfo mi = new MarketingTemplate() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                return false;
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                return Season.Summer;
+            }
+        };
+        final LocalDate today = LocalDate.of(2016, 7, 2);
+
+        // when
+        final Outcome atTarget = stocked.explain(today, 20, 10, mi, home);
+        final Outcome enough = stocked.explain(today, 25, 0, mi, home);
+        final Outcome ordered = stocked.explain(today, 10, 0, mi, home);
+        final Outcome rounded = bunched.explain(today, 6, 0, mi, home);
+        final Outcome inSeason = seasonal.explain(today, 40, 0, mi, home);
+        final Outcome notStocked = seasonal.explain(today, 0, 0, mi, Warehouse.Zzyzx);
+
+        // then
+        assertEquals(Outcome.AT_TARGET, atTarget);
+        assertEquals(Outcome.ENOUGH_STOCK, enough);
+        assertEquals(Outcome.ORDERED, ordered);
+        assertEquals(Outcome.ROUNDED_TO_ZERO, rounded);
+        assertEquals(Outcome.ORDERED, inSeason);
+        assertEquals(Outcome.NOT_STOCKED, notStocked);
+    }
+
+    @Test
+    public void traceKeepsTheLatestSampledDecisions() {
+        // given
+        final DecisionLog log = new DecisionLog(3, 1);
+        final Item item = new StockedItem(Collections.singletonMap(Warehouse.Ashford, 30), new AnyDay());
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            log.record(item, Warehouse.Ashford, Outcome.ORDERED, i, i == 9 ? -1 : 2, 30 - i);
+        }
+
+        // then
+        final List<DecisionLog.Trace> trace = log.trace();
+        assertEquals(4, trace.size());
+        assertEquals(6, trace.get(0).sequence);
+        final DecisionLog.Trace last = trace.get(3);
+        assertTrue(last.item == item);
+        assertEquals(Warehouse.Ashford, last.warehouse);
+        assertEquals(Outcome.ORDERED, last.outcome);
+        assertEquals(9, last.onHand);
+        assertEquals(-1, last.onOrder);
+        assertEquals(21, last.quantity);
+        assertEquals(10, log.count(Outcome.ORDERED, Warehouse.Ashford, DecisionLog.Kind.STOCKED));
+    }
+
+    @Test
+    public void concurrentWritersNeverMixTheirDecisions() throws InterruptedException {
+        // given
+        final DecisionLog log = new DecisionLog(1, 1);
+        final Item[] items = new Item[8];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new StockedItem(i, new AnyDay());
+        }
+        final Map<Item, Integer> numbers = new IdentityHashMap<>();
+        for (int i = 0; i < items.length; i++) {
+            numbers.put(items[i], i);
+        }
+        final Thread[] writers = new Thread[items.length];
+        for (int w = 0; w < writers.length; w++) {
+            final int number = w;
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    log.record(items[number], Warehouse.home(), Outcome.ORDERED, number, number, number);
+                }
+            });
+        }
+
+        // when
+        final List<DecisionLog.Trace> read = new ArrayList<>();
+        for (final Thread writer : writers) {
+            writer.start();
+        }
+        for (int i = 0; i < 2_000; i++) {
+            read.addAll(log.trace());
+        }
+        for (final Thread writer : writers) {
+            writer.join();
+        }
+        final List<DecisionLog.Trace> last = log.trace();
+        read.addAll(last);
+
+        // then
+        assertEquals(1, last.size());
+        for (final DecisionLog.Trace trace : read) {
+            final int number = numbers.get(trace.item);
+            assertEquals(number, trace.onHand);
+            assertEquals(number, trace.onOrder);
+            assertEquals(number, trace.quantity);
+        }
+    }
+
+    @Test
+    public void countingAloneTracesNothing() {
+        // given
+        final DecisionLog log = new DecisionLog();
+
+        // when
+        log.record(new StockedItem(Collections.singletonMap(Warehouse.Peculiar, 5), new AnyDay()), Warehouse.Peculiar,
+                Outcome.ENOUGH_STOCK, 5, 0, 0);
+
+        // then
+        assertTrue(log.trace().isEmpty());
+        assertEquals(1, log.counts().get(Outcome.ENOUGH_STOCK).longValue());
+    }
+
+}
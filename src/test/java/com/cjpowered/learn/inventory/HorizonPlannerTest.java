@@ -0,0 +1,230 @@
+package com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.ace.HorizonPlanner;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class HorizonPlannerTest {
+
+    private static final int WAREHOUSES = Warehouse.values().length;
+    private static final int LEAD_TIME = 3;
+
+    @Test
+    public void projectionMatchesRunningTheManagerEveryDay() {
+        assertProjectionMatchesManager(new CatalogFixture(300, 41).items, new CatalogFixture(300, 41).items);
+    }
+
+    @Test
+    public void projectionUsesEachItemsSettings() {
+        final RuleSettings rules = new RuleSettings(0.5, 30, 3, 1.5);
+        assertProjectionMatchesManager(withSettings(new CatalogFixture(300, 41).items, rules),
+                withSettings(new CatalogFixture(300, 41).items, rules));
+    }
+
+    private static void assertProjectionMatchesManager(final List<Item> plannedCatalog, final List<Item> simulatedCatalog) {
+        // given
+        final LocalDate from = LocalDate.of(2016, 5, 20);
+        final int days = 45;
+        final Store planned = new Store(plannedCatalog);
+        final Store simulated = new Store(simulatedCatalog);
+        final HorizonPlanner.Demand demand = (item, warehouse, day) -> planned.demand(item, warehouse, day);
+
+        // when
+        final List<List<String>> expected = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            final LocalDate date = from.plusDays(day);
+            simulated.arrive(day);
+            final List<Order> orders = new AceInventoryManager(simulated, simulated.marketing()).getOrders(date);
+            for (final Order order : orders) {
+                simulated.place(day, order);
+            }
+            simulated.consume(date);
+            expected.add(orders.stream().map(simulated::describe).collect(Collectors.toList()));
+        }
+        final List<List<String>> actual = new HorizonPlanner(planned, planned.marketing(), demand, LEAD_TIME)
+                .plan(from, days)
+                .map(day -> day.orders.toList().stream().map(planned::describe).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+
+        // then
+        assertEquals(days, actual.size());
+        assertTrue(expected.stream().filter(orders -> !orders.isEmpty()).count() > days / 2);
+        assertTrue(simulated.writes > 0);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void projectionWritesNothing() {
+        // given
+        final Store store = new Store(new CatalogFixture(100, 43).items) {
+            @Override
+            public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+                throw new AssertionError("write");
+            }
+        };
+
+        // when
+        final long days = new HorizonPlanner(store, store.marketing(), (item, warehouse, day) -> 5, 2)
+                .plan(LocalDate.of(2016, 1, 1), 30).count();
+
+        // then
+        assertEquals(30, days);
+    }
+
+    /**
+     * every other item rebuilt to reorder by {@code rules}
+     */
+    private static List<Item> withSettings(final List<Item> catalog, final RuleSettings rules) {
+        final List<Item> items = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            final Item item = catalog.get(i);
+            items.add(i % 2 == 0 ? item : rebuild(item, targets(item), rules));
+        }
+        return items;
+    }
+
+    private static int[] targets(final Item item) {
+        final int[] want = new int[WAREHOUSES];
+        for (final Warehouse warehouse : Warehouse.values()) {
+            want[warehouse.ordinal()] = item instanceof SeasonalItem ? ((SeasonalItem) item).wantOnHand(warehouse)
+                    : ((StockedItem) item).wantOnHand(warehouse);
+        }
+        return want;
+    }
+
+    private static Item rebuild(final Item item, final int[] want, final RuleSettings rules) {
+        return item instanceof SeasonalItem
+                ? new SeasonalItem(want, ((SeasonalItem) item).season(), item.schedule(), ((SeasonalItem) item).ammountInABunch(), rules)
+                : new StockedItem(want, item.schedule(), ((StockedItem) item).ammountInABunch(), rules);
+    }
+
+    /**
+     * Database whose stock and stock levels change between runs, rebuilding
+     * items with their current stock levels on every
+     * {@link #stockItems()}. Items of every build map back to their
+     * position in the original catalog.
+     */
+    private static class Store extends DatabaseTemplate {
+
+        private final List<Item> catalog;
+        private final int[] targets;
+        private final int[] onHand;
+        private final int[] onOrder;
+        private final Map<Item, Integer> index = new IdentityHashMap<>();
+        private final Map<Integer, int[]> arriving = new HashMap<>();
+        private int writes;
+
+        Store(final List<Item> catalog) {
+            this.catalog = catalog;
+            this.targets = new int[catalog.size() * WAREHOUSES];
+            this.onHand = new int[targets.length];
+            this.onOrder = new int[targets.length];
+            final int[] initial = new int[targets.length];
+            for (int i = 0; i < catalog.size(); i++) {
+                final Item item = catalog.get(i);
+                index.put(item, i);
+                System.arraycopy(HorizonPlannerTest.targets(item), 0, targets, i * WAREHOUSES, WAREHOUSES);
+                for (final Warehouse warehouse : Warehouse.values()) {
+                    final int at = StockSnapshot.index(i, warehouse);
+                    onHand[at] = (i * 7 + warehouse.ordinal() * 13) % 50;
+                    onOrder[at] = i % 5 == 0 ? 6 : 0;
+                    initial[at] = onOrder[at];
+                }
+            }
+            arriving.put(LEAD_TIME, initial);
+        }
+
+        @Override
+        public List<Item> stockItems() {
+            final List<Item> items = new ArrayList<>();
+            for (int i = 0; i < catalog.size(); i++) {
+                final Item item = catalog.get(i);
+                final int[] want = new int[WAREHOUSES];
+                System.arraycopy(targets, i * WAREHOUSES, want, 0, WAREHOUSES);
+                final Item built = rebuild(item, want, item instanceof SeasonalItem ? ((SeasonalItem) item).rules()
+                        : ((StockedItem) item).rules());
+                index.put(built, i);
+                items.add(built);
+            }
+            return items;
+        }
+
+        @Override
+        public int onHand(final Item item, final Warehouse warehouse) {
+            return onHand[StockSnapshot.index(index.get(item), warehouse)];
+        }
+
+        @Override
+        public int onOrder(final Item item, final Warehouse warehouse) {
+            return onOrder[StockSnapshot.index(index.get(item), warehouse)];
+        }
+
+        @Override
+        public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+            targets[StockSnapshot.index(index.get(item), warehouse)] = newAmount;
+            writes++;
+        }
+
+        MarketingInfo marketing() {
+            return new MarketingTemplate() {
+                @Override
+                public boolean onSale(final Item item, final LocalDate when) {
+                    return (index.get(item) * 31 + when.getDayOfYear()) % 9 == 0;
+                }
+
+                @Override
+                public Season season(final LocalDate when) {
+                    return when.getMonthValue() < 6 ? Season.Spring : Season.Summer;
+                }
+            };
+        }
+
+        int demand(final Item item, final Warehouse warehouse, final LocalDate day) {
+            return (index.get(item) + warehouse.ordinal() + day.getDayOfMonth()) % 7;
+        }
+
+        void arrive(final int day) {
+            final int[] arrivals = arriving.remove(day);
+            if (arrivals == null)
+                return;
+            for (int at = 0; at < arrivals.length; at++) {
+                onHand[at] += arrivals[at];
+                onOrder[at] -= arrivals[at];
+            }
+        }
+
+        void place(final int day, final Order order) {
+            final int at = StockSnapshot.index(index.get(order.item), order.warehouse);
+            onOrder[at] += order.quantity;
+            arriving.computeIfAbsent(day + LEAD_TIME, d -> new int[targets.length])[at] += order.quantity;
+        }
+
+        void consume(final LocalDate day) {
+            for (int i = 0; i < catalog.size(); i++) {
+                for (final Warehouse warehouse : Warehouse.values()) {
+                    final int at = StockSnapshot.index(i, warehouse);
+                    onHand[at] = Math.max(0, onHand[at] - demand(catalog.get(i), warehouse, day));
+                }
+            }
+        }
+
+        String describe(final Order order) {
+            return index.get(order.item) + "@" + order.warehouse + "x" + order.quantity;
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.ace.IncrementalInventoryManager;
+import com.cjpowered.learn.inventory.ace.IncrementalInventoryManager.Change;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class IncrementalInventoryManagerTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void ordersAndWritesMatchFullRunsAsStockSalesAndSeasonsChange() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(600, 47);
+        final Map<String, Integer> calls = new HashMap<>();
+        final VersionedInventoryDatabase database = new VersionedInventoryDatabase(catalog.database(calls));
+        final Season[] season = { Season.Summer };
+        final MarketingInfo mi = new MarketingTemplate() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                return catalog.onSale.contains(item);
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                return season[0];
+            }
+        };
+        final IncrementalInventoryManager incremental = new IncrementalInventoryManager(database, mi);
+        final Random random = new Random(53);
+        final LocalDate start = LocalDate.of(2016, 6, 20);
+        int ordered = 0;
+
+        for (int day = 0; day < 20; day++) {
+            // when
+            final LocalDate today = start.plusDays(day);
+            if (day > 0) {
+                for (int change = 0; change < 25; change++) {
+                    final Item item = catalog.items.get(random.nextInt(catalog.items.size()));
+                    final Warehouse warehouse = Warehouse.values()[random.nextInt(Warehouse.values().length)];
+                    database.set(item, warehouse, random.nextInt(3) == 0 ? 0 : random.nextInt(70), random.nextInt(20));
+                    incremental.changed(random.nextBoolean() ? Change.stock(item, warehouse) : Change.received(item, warehouse));
+                }
+                for (int change = 0; change < 4; change++) {
+                    final Item item = catalog.items.get(random.nextInt(catalog.items.size()));
+                    if (!catalog.onSale.remove(item))
+                        catalog.onSale.add(item);
+                    incremental.changed(Change.sale(item));
+                }
+            }
+            if (day == 12)
+                season[0] = Season.Winter;
+            final int before = calls.get(FakeDatabase.ON_HAND_METHOD);
+            final List<Order> expected = new AceInventoryManager(database, mi).getOrders(today);
+            final int fullWrites = calls.get(FakeDatabase.ON_HAND_METHOD) - before;
+            final List<Order> actual = incremental.getOrders(today);
+            final int incrementalWrites = calls.get(FakeDatabase.ON_HAND_METHOD) - before - fullWrites;
+
+            // then
+            assertEquals(today.toString(), expected, actual);
+            assertEquals(today.toString(), fullWrites, incrementalWrites);
+            ordered += expected.size();
+        }
+        assertTrue(ordered > 1000);
+    }
+
+    @Test
+    public void readsStockOnlyForChangedPairs() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(300, 59);
+        final List<Integer> reads = new ArrayList<>();
+        final InventoryDatabase database = new FakeDatabase(catalog.onHand, catalog.onOrder) {
+            @Override
+            public List<Item> stockItems() {
+                return new ArrayList<>(catalog.items);
+            }
+
+            @Override
+            public StockSnapshot stockSnapshot(final List<Item> items) {
+                reads.add(items.size());
+                return super.stockSnapshot(items);
+            }
+        };
+        final MarketingInfo mi = catalog.marketing(Season.Fall);
+        final IncrementalInventoryManager incremental = new IncrementalInventoryManager(database, mi);
+        Item changed = null;
+        for (final Item item : catalog.items) {
+            if (item.schedule() instanceof AnyDay && item.stocks(Warehouse.Ashford))
+                changed = item;
+        }
+        final LocalDate today = LocalDate.of(2016, 7, 5);
+        incremental.getOrders(today.minusDays(1));
+
+        // when
+        catalog.onHand.put(Warehouse.Ashford, changed, 0);
+        catalog.onOrder.put(Warehouse.Ashford, changed, 0);
+        incremental.changed(Change.stock(changed, Warehouse.Ashford));
+        final List<Order> afterChange = incremental.getOrders(today);
+        final List<Order> unchanged = incremental.getOrders(today);
+
+        // then
+        assertTrue(reads.get(0) > 200);
+        assertEquals(Integer.valueOf(1), reads.get(1));
+        assertEquals(Integer.valueOf(0), reads.get(2));
+        final List<Order> expected = new AceInventoryManager(database, mi).getOrders(today);
+        assertTrue(expected.stream().anyMatch(order -> order.warehouse == Warehouse.Ashford));
+        assertEquals(expected, afterChange);
+        assertEquals(expected, unchanged);
+    }
+
+    @Test
+    public void itemsRebuiltByTheDatabaseAreDecidedAgain() throws IOException {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(200, 61);
+        final Path fullFile = folder.newFile().toPath();
+        final Path incrementalFile = folder.newFile().toPath();
+        final MappedInventoryDatabase full = MappedInventoryDatabase.create(fullFile, catalog.items, catalog.database());
+        final MappedInventoryDatabase mapped = MappedInventoryDatabase.create(incrementalFile, catalog.items, catalog.database());
+        final MarketingInfo mi = new MarketingTemplate() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                return false;
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                return Season.Spring;
+            }
+        };
+        final IncrementalInventoryManager incremental = new IncrementalInventoryManager(mapped, mi);
+        final LocalDate start = LocalDate.of(2016, 7, 5);
+
+        for (int day = 0; day < 3; day++) {
+            // when
+            final List<Order> expected = new AceInventoryManager(full, mi).getOrders(start.plusDays(day));
+            final List<Order> actual = incremental.getOrders(start.plusDays(day));
+
+            // then
+            assertFalse(expected.isEmpty());
+            assertEquals(rows(expected, full.stockItems()), rows(actual, mapped.stockItems()));
+        }
+    }
+
+    /**
+     * orders with each item replaced by its position in the catalog
+     */
+    private static List<String> rows(final List<Order> orders, final List<Item> stockItems) {
+        final List<String> rows = new ArrayList<>();
+        for (final Order order : orders) {
+            rows.add(stockItems.indexOf(order.item) + " " + order.quantity + " " + order.warehouse);
+        }
+        return rows;
+    }
+
+}
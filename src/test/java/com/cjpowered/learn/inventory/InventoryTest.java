@@ -1,19 +1,30 @@
 package com.cjpowered.learn.inventory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
+import org.junit.Assume;
 import org.junit.Test;
 
 import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.ace.PipelinedInventoryManager;
+import com.cjpowered.learn.marketing.InstrumentedMarketingInfo;
 import com.cjpowered.learn.marketing.MarketingInfo;
 import com.cjpowered.learn.marketing.Season;
+import com.cjpowered.learn.marketing.SynchronizedMarketingInfo;
 
 /*
  * We need to keep items in stock to prevent back orders. See the README.md
@@ -790,4 +801,521 @@ public class InventoryTest {
 		assertEquals( Warehouse.home(), actual.get(0).warehouse);
     }
     
+    @Test
+	public void readStockInBulk(){
+		//given
+		final int shouldHave = 15;
+		final Item item = new StockedItem(shouldHave, new AnyDay());
+		final InventoryDatabase db = new DatabaseTemplate(){
+			@Override
+			public List<Item> stockItems(){
+				return Collections.singletonList(item);
+			}
+			@Override
+			public int onHand(Item item, Warehouse warehouse){
+				throw new AssertionError("per-item read");
+			}
+			@Override
+			public int onOrder(Item item, Warehouse warehouse){
+				throw new AssertionError("per-item read");
+			}
+			@Override
+			public StockSnapshot stockSnapshot(List<Item> items){
+				final int[] onHand = new int[Warehouse.values().length];
+				onHand[Warehouse.home().ordinal()] = 5;
+				return new StockSnapshot(items, onHand, new int[onHand.length]);
+			}
+		};
+		final MarketingInfo mi = new MarketingTemplate(){
+			@Override
+			public boolean onSale(Item item, final LocalDate when){
+				return false;
+			}
+		};
+		final InventoryManager im = new AceInventoryManager(db, mi);
+		final LocalDate today = LocalDate.now();
+
+		//when
+		final List<Order> actual = im.getOrders(today);
+
+		//then
+		assertEquals(Collections.singletonList(new Order(item, 10, Warehouse.home())), actual);
+    }
+    
+    @Test
+	public void parallelRunOrdersTheSameAsSequentialRun(){
+		//given
+		final CatalogFixture catalog = new CatalogFixture(2000, 42);
+		final MarketingInfo mi = catalog.marketing(Season.Summer);
+		final LocalDate today = LocalDate.of(2016, 7, 1);
+		final InventoryManager sequential = new AceInventoryManager(catalog.database(), mi);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		final InventoryManager parallel = new AceInventoryManager(new SynchronizedInventoryDatabase(catalog.database()), new SynchronizedMarketingInfo(mi), pool);
+
+		//when
+		final List<Order> expected = sequential.getOrders(today);
+		final List<Order> actual = parallel.getOrders(today);
+		pool.shutdown();
+
+		//then
+		assertTrue(expected.size() > 100);
+		assertEquals(expected, actual);
+    }
+    
+    @Test
+	public void streamDecidesOrdersAsTheyAreConsumed(){
+		//given
+		final List<Item> evaluated = new ArrayList<>();
+		final List<Item> items = new ArrayList<>();
+		final Table<Warehouse, Item, Integer> store = HashBasedTable.create();
+		for(int i = 0; i < 100; i++){
+			final Item item = new StockedItem(10, new AnyDay()){
+				@Override
+				public int orderQuantity(LocalDate when, int onHand, int onOrder, InventoryDatabase database, MarketingInfo marketingInfo, Warehouse warehouse){
+					evaluated.add(this);
+					return super.orderQuantity(when, onHand, onOrder, database, marketingInfo, warehouse);
+				}
+			};
+			items.add(item);
+			store.put(Warehouse.home(), item, 0);
+		}
+		final InventoryDatabase db = new FakeDatabase(store, HashBasedTable.create()){
+			@Override
+			public List<Item> stockItems(){
+				return items;
+			}
+		};
+		final List<Item> asked = new ArrayList<>();
+		final MarketingInfo mi = new MarketingTemplate(){
+			@Override
+			public boolean onSale(Item item, final LocalDate when){
+				asked.add(item);
+				return false;
+			}
+		};
+		final InventoryManager im = new AceInventoryManager(db, mi);
+		final LocalDate today = LocalDate.now();
+
+		//when
+		final Optional<Order> first = im.streamOrders(today).findFirst();
+
+		//then
+		assertEquals(new Order(items.get(0), 10, Warehouse.home()), first.get());
+		assertEquals(Collections.singletonList(items.get(0)), evaluated);
+		assertEquals(1, asked.size());
+    }
+    
+    @Test
+	public void askMarketingOncePerItemAndDate(){
+		//given
+		final Map<Warehouse, Integer> everywhere = new HashMap<>();
+		for(Warehouse warehouse : Warehouse.values()){
+			everywhere.put(warehouse, 10);
+		}
+		final List<Item> items = Arrays.asList(
+				new SeasonalItem(everywhere, Season.Winter, new AnyDay()),
+				new SeasonalItem(everywhere, Season.Summer, new AnyDay()),
+				new StockedItem(everywhere, new AnyDay()));
+		final InventoryDatabase db = new DatabaseTemplate(){
+			@Override
+			public List<Item> stockItems(){
+				return items;
+			}
+		};
+		final Map<Item, Integer> saleLookups = new HashMap<>();
+		final List<LocalDate> seasonLookups = new ArrayList<>();
+		final MarketingInfo mi = new MarketingTemplate(){
+			@Override
+			public boolean onSale(Item item, final LocalDate when){
+				saleLookups.merge(item, 1, Integer::sum);
+				return false;
+			}
+			@Override
+			public Season season(LocalDate when) {
+				seasonLookups.add(when);
+				return Season.Winter;
+			};
+		};
+		final InventoryManager im = new AceInventoryManager(db, mi);
+		final LocalDate today = LocalDate.now();
+
+		//when
+		final List<Order> actual = im.getOrders(today);
+
+		//then
+		assertEquals(12, actual.size());
+		assertEquals(new HashSet<>(items), saleLookups.keySet());
+		assertEquals(Collections.singleton(1), new HashSet<>(saleLookups.values()));
+		assertEquals(Collections.singletonList(today), seasonLookups);
+    }
+    
+    @Test
+	public void checkEachScheduleOncePerRun(){
+		//given
+		final List<LocalDate> scheduleChecks = new ArrayList<>();
+		final Schedule weekdays = new Schedule(){
+			@Override
+			public boolean canOrderToday(LocalDate today){
+				scheduleChecks.add(today);
+				return true;
+			}
+		};
+		final Item daily = new StockedItem(10, weekdays);
+		final Item alsoDaily = new StockedItem(10, weekdays);
+		final Item monthly = new StockedItem(10, new FirstOfTheMonth());
+		final Item alsoMonthly = new StockedItem(10, new FirstOfTheMonth());
+		final List<List<Item>> snapshotRequests = new ArrayList<>();
+		final InventoryDatabase db = new DatabaseTemplate(){
+			@Override
+			public List<Item> stockItems(){
+				return Arrays.asList(daily, monthly, alsoDaily, alsoMonthly);
+			}
+			@Override
+			public StockSnapshot stockSnapshot(List<Item> items){
+				snapshotRequests.add(items);
+				return super.stockSnapshot(items);
+			}
+		};
+		final MarketingInfo mi = new MarketingTemplate(){
+			@Override
+			public boolean onSale(Item item, final LocalDate when){
+				return false;
+			}
+		};
+		final InventoryManager im = new AceInventoryManager(db, mi);
+		final LocalDate today = LocalDate.of(2016, 3, 2);
+
+		//when
+		final List<Order> actual = im.getOrders(today);
+
+		//then
+		assertEquals(2, actual.size());
+		assertEquals(Collections.singletonList(today), scheduleChecks);
+		assertEquals(Collections.singletonList(Arrays.asList(daily, alsoDaily)), snapshotRequests);
+    }
+    
+    @Test
+	public void readStockOnlyWhereItemIsStocked(){
+		//given
+		final Map<Warehouse, Integer> ashfordOnly = new HashMap<>();
+		ashfordOnly.put(Warehouse.Ashford, 15);
+		final Item item = new StockedItem(ashfordOnly, new AnyDay());
+		final Item nowhere = new StockedItem(new HashMap<>(), new AnyDay());
+		final Set<Warehouse> read = new HashSet<>();
+		final InventoryDatabase db = new DatabaseTemplate(){
+			@Override
+			public List<Item> stockItems(){
+				return Arrays.asList(item, nowhere);
+			}
+			@Override
+			public int onHand(Item item, Warehouse warehouse){
+				read.add(warehouse);
+				return 5;
+			}
+		};
+		final MarketingInfo mi = new MarketingTemplate(){
+			@Override
+			public boolean onSale(Item item, final LocalDate when){
+				return false;
+			}
+		};
+		final InventoryManager im = new AceInventoryManager(db, mi);
+		final LocalDate today = LocalDate.now();
+
+		//when
+		final List<Order> actual = im.getOrders(today);
+
+		//then
+		assertEquals(Collections.singletonList(new Order(item, 10, Warehouse.Ashford)), actual);
+		assertEquals(Collections.singleton(Warehouse.Ashford), read);
+    }
+    
+    @Test
+	public void writeStockLevelChangesInOneBatchAtTheEndOfTheRun(){
+		//given
+		final List<Item> items = new ArrayList<>();
+		final Table<Warehouse, Item, Integer> store = HashBasedTable.create();
+		for(int i = 0; i < 3; i++){
+			final Item item = new StockedItem(10, new AnyDay());
+			items.add(item);
+			store.put(Warehouse.home(), item, 0);
+		}
+		final List<Collection<RequiredOnHand>> batches = new ArrayList<>();
+		final InventoryDatabase db = new FakeDatabase(store, HashBasedTable.create()){
+			@Override
+			public List<Item> stockItems(){
+				return items;
+			}
+			@Override
+			public void setRequiredOnHand(Item item, Warehouse warehouse, int newAmount){
+				throw new AssertionError("unbatched write");
+			}
+			@Override
+			public void setRequiredOnHand(Collection<RequiredOnHand> changes){
+				batches.add(new ArrayList<>(changes));
+			}
+		};
+		final MarketingInfo mi = new MarketingTemplate(){
+			@Override
+			public boolean onSale(Item item, final LocalDate when){
+				return false;
+			}
+		};
+		final InventoryManager im = new AceInventoryManager(db, mi);
+		final LocalDate today = LocalDate.now();
+
+		//when
+		final List<Order> actual = im.getOrders(today);
+
+		//then
+		assertEquals(3, actual.size());
+		assertEquals(Collections.singletonList(Arrays.asList(
+				new RequiredOnHand(items.get(0), Warehouse.home(), 11),
+				new RequiredOnHand(items.get(1), Warehouse.home(), 11),
+				new RequiredOnHand(items.get(2), Warehouse.home(), 11))), batches);
+    }
+    
+    @Test
+	public void mergeRepeatedStockLevelChangesAndRetryFailedBatches(){
+		//given
+		final Item item = new StockedItem(10, new AnyDay());
+		final List<Collection<RequiredOnHand>> batches = new ArrayList<>();
+		final boolean[] down = { true };
+		final InventoryDatabase db = new DatabaseTemplate(){
+			@Override
+			public void setRequiredOnHand(Collection<RequiredOnHand> changes){
+				if(down[0]){
+					throw new IllegalStateException("database down");
+				}
+				batches.add(new ArrayList<>(changes));
+			}
+		};
+		final WriteBehindInventoryDatabase writes = new WriteBehindInventoryDatabase(db, 2, Duration.ofHours(1));
+
+		//when
+		writes.setRequiredOnHand(item, Warehouse.Ashford, 11);
+		writes.setRequiredOnHand(item, Warehouse.Ashford, 12);
+		writes.setRequiredOnHand(item, Warehouse.Zzyzx, 13);
+		writes.setRequiredOnHand(item, Warehouse.Peculiar, 14);
+		final int pendingAfterFailure = writes.pending();
+		down[0] = false;
+		writes.flush();
+
+		//then
+		assertEquals(3, pendingAfterFailure);
+		assertEquals(Collections.singletonList(Arrays.asList(
+				new RequiredOnHand(item, Warehouse.Ashford, 12),
+				new RequiredOnHand(item, Warehouse.Zzyzx, 13),
+				new RequiredOnHand(item, Warehouse.Peculiar, 14))), batches);
+		assertEquals(0, writes.pending());
+    }
+    
+    @Test
+	public void summarizeDatabaseAndMarketingCallsPerRun(){
+		//given
+		final CatalogFixture catalog = new CatalogFixture(200, 3);
+		final InstrumentedInventoryDatabase db = new InstrumentedInventoryDatabase(catalog.database());
+		final InstrumentedMarketingInfo mi = new InstrumentedMarketingInfo(catalog.marketing(Season.Winter));
+		final List<RunSummary> summaries = new ArrayList<>();
+		final InventoryManager im = new InstrumentedInventoryManager(new AceInventoryManager(db, mi), db, mi, summaries::add);
+		final LocalDate today = LocalDate.of(2016, 1, 1);
+
+		//when
+		im.getOrders(today);
+		im.streamOrders(today).count();
+
+		//then
+		assertEquals(2, summaries.size());
+		for(RunSummary summary : summaries){
+			assertEquals(1, summary.database.get(InstrumentedInventoryDatabase.STOCK_ITEMS).count());
+			assertEquals(1, summary.database.get(InstrumentedInventoryDatabase.STOCK_SNAPSHOT).count());
+			assertEquals(1, summary.marketing.get(InstrumentedMarketingInfo.SEASON).count());
+			assertTrue(summary.elapsed.compareTo(summary.databaseTime()) >= 0);
+		}
+		assertEquals(1, summaries.get(0).marketing.get(InstrumentedMarketingInfo.ITEMS_ON_SALE).count());
+		assertFalse(summaries.get(0).marketing.containsKey(InstrumentedMarketingInfo.ON_SALE));
+		assertFalse(summaries.get(1).marketing.containsKey(InstrumentedMarketingInfo.ITEMS_ON_SALE));
+		assertTrue(summaries.get(1).marketing.get(InstrumentedMarketingInfo.ON_SALE).count() <= catalog.items.size());
+		assertEquals(2, db.metrics().snapshot().get(InstrumentedInventoryDatabase.STOCK_ITEMS).count());
+    }
+    
+    @Test
+	public void pipelinedRunOrdersTheSameAsSequentialRunWithBoundedReadsInFlight(){
+		//given
+		final CatalogFixture catalog = new CatalogFixture(300, 11);
+		final MarketingInfo mi = catalog.marketing(Season.Spring);
+		final LocalDate today = LocalDate.of(2016, 4, 1);
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		final InventoryDatabase slow = new FakeDatabase(catalog.onHand, catalog.onOrder){
+			@Override
+			public List<Item> stockItems(){
+				return catalog.items;
+			}
+			@Override
+			public int onHand(Item item, Warehouse warehouse){
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try{
+					Thread.sleep(1);
+				}catch(InterruptedException e){
+					throw new IllegalStateException(e);
+				}
+				inFlight.decrementAndGet();
+				return super.onHand(item, warehouse);
+			}
+		};
+		final ExecutorService executor = Executors.newFixedThreadPool(16);
+		final InventoryManager pipelined = new PipelinedInventoryManager(new ExecutorAsyncInventoryDatabase(slow, executor), mi, 8);
+
+		//when
+		final List<Order> expected = new AceInventoryManager(catalog.database(), mi).getOrders(today);
+		final List<Order> actual = pipelined.getOrders(today);
+		executor.shutdown();
+
+		//then
+		assertTrue(expected.size() > 20);
+		assertEquals(expected, actual);
+		assertTrue(maxInFlight.get() <= 4);
+    }
+    
+    
+    @Test
+	public void perPairRunOrdersTheSameAsSequentialRunWithBoundedDatabaseCalls(){
+		//given
+		final CatalogFixture catalog = new CatalogFixture(300, 13);
+		final MarketingInfo mi = catalog.marketing(Season.Fall);
+		final LocalDate today = LocalDate.of(2016, 10, 1);
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		final InventoryDatabase slow = new FakeDatabase(catalog.onHand, catalog.onOrder){
+			@Override
+			public List<Item> stockItems(){
+				return catalog.items;
+			}
+			@Override
+			public int onOrder(Item item, Warehouse warehouse){
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try{
+					Thread.sleep(1);
+				}catch(InterruptedException e){
+					throw new IllegalStateException(e);
+				}
+				inFlight.decrementAndGet();
+				return super.onOrder(item, warehouse);
+			}
+		};
+		final ExecutorService executor = Executors.newFixedThreadPool(16);
+		final InventoryManager perPair = new AceInventoryManager(slow, new SynchronizedMarketingInfo(mi), executor, 4);
+
+		//when
+		final List<Order> expected = new AceInventoryManager(catalog.database(), mi).getOrders(today);
+		final List<Order> actual = perPair.getOrders(today);
+		executor.shutdown();
+
+		//then
+		assertTrue(expected.size() > 20);
+		assertEquals(expected, actual);
+		assertTrue(maxInFlight.get() <= 4);
+    }
+    
+    @Test
+	public void virtualThreadRunOrdersTheSameAsSequentialRun(){
+		//given
+		final CatalogFixture catalog = new CatalogFixture(500, 17);
+		final MarketingInfo mi = catalog.marketing(Season.Winter);
+		final LocalDate today = LocalDate.of(2016, 1, 1);
+		final InventoryManager virtual;
+		try{
+			virtual = AceInventoryManager.withVirtualThreads(new SynchronizedInventoryDatabase(catalog.database()), new SynchronizedMarketingInfo(mi), 64);
+		}catch(UnsupportedOperationException e){
+			Assume.assumeNoException(e);
+			return;
+		}
+
+		//when
+		final List<Order> expected = new AceInventoryManager(catalog.database(), mi).getOrders(today);
+		final List<Order> actual = virtual.getOrders(today);
+
+		//then
+		assertTrue(expected.size() > 20);
+		assertEquals(expected, actual);
+    }
+    
+    @Test
+	public void orderBatchHoldsTheSameOrdersAsTheList(){
+		//given
+		final CatalogFixture catalog = new CatalogFixture(1000, 19);
+		final MarketingInfo mi = catalog.marketing(Season.Spring);
+		final LocalDate today = LocalDate.of(2016, 5, 1);
+
+		//when
+		final List<Order> expected = new AceInventoryManager(catalog.database(), mi).getOrders(today);
+		final OrderBatch actual = new AceInventoryManager(catalog.database(), mi).getOrderBatch(today);
+
+		//then
+		assertTrue(expected.size() > 50);
+		assertEquals(expected, actual.toList());
+    }
+    
+    @Test
+	public void orderQuantityIsTheQuantityCreateOrderWouldOrder(){
+		//given
+		final CatalogFixture catalog = new CatalogFixture(500, 37);
+		final MarketingInfo mi = catalog.marketing(Season.Summer);
+		final LocalDate today = LocalDate.of(2016, 7, 1);
+		final Map<Item, Integer> raised = new HashMap<>();
+		final InventoryDatabase db = new DatabaseTemplate(){
+			@Override
+			public void setRequiredOnHand(Item item, Warehouse warehouse, int newAmount){
+				raised.merge(item, 1, Integer::sum);
+			}
+		};
+		int ordered = 0;
+
+		for(Item item : catalog.items){
+			for(Warehouse warehouse : Warehouse.values()){
+				final int onHand = catalog.onHand.get(warehouse, item);
+				final int onOrder = catalog.onOrder.get(warehouse, item);
+
+				//when
+				final Optional<Order> order = item.createOrder(today, onHand, onOrder, db, mi, warehouse);
+				final int quantity = item.orderQuantity(today, onHand, onOrder, db, mi, warehouse);
+
+				//then
+				assertEquals(order.map(o -> o.quantity).orElse(0).intValue(), quantity);
+				ordered += quantity == 0 ? 0 : 1;
+			}
+		}
+		assertTrue(ordered > 100);
+		for(int changes : raised.values()){
+			assertEquals(0, changes % 2);
+		}
+    }
+
+    @Test
+	public void ordersFollowTheCatalogWithinEachWarehouse(){
+		//given
+		final CatalogFixture catalog = new CatalogFixture(400, 41);
+		final MarketingInfo mi = catalog.marketing(Season.Summer);
+		final LocalDate firstOfTheMonth = LocalDate.of(2016, 7, 1);
+		final InventoryManager im = new AceInventoryManager(catalog.database(), mi);
+
+		//when
+		final List<Order> actual = im.getOrders(firstOfTheMonth);
+
+		//then
+		final List<Order> expected = new ArrayList<>();
+		for(Warehouse warehouse : Warehouse.values()){
+			for(Item item : catalog.items){
+				for(Order order : actual){
+					if(order.item == item && order.warehouse == warehouse){
+						expected.add(order);
+					}
+				}
+			}
+		}
+		assertTrue(actual.stream().anyMatch(order -> order.item.schedule() instanceof FirstOfTheMonth));
+		assertTrue(actual.stream().anyMatch(order -> order.item.schedule() instanceof AnyDay));
+		assertEquals(expected, actual);
+    }
 }
@@ -0,0 +1,50 @@
+package com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ItemRegistryTest {
+
+    @Test
+    public void idIsPositionInTheRegisteredList() {
+        // given
+        final List<Item> items = new CatalogFixture(100, 3).items;
+
+        // when
+        final ItemRegistry registry = new ItemRegistry(items);
+
+        // then
+        assertEquals(items.size(), registry.size());
+        for (int id = 0; id < items.size(); id++) {
+            assertSame(items.get(id), registry.item(id));
+            assertEquals(id, registry.id(items.get(id)));
+        }
+        assertEquals(items, registry.items());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void itemsAreToldApartByIdentity() {
+        // given
+        final Item registered = new StockedItem(10, new AnyDay()) {
+            @Override
+            public boolean equals(final Object obj) {
+                return obj instanceof StockedItem;
+            }
+
+            @Override
+            public int hashCode() {
+                return 1;
+            }
+        };
+        final ItemRegistry registry = new ItemRegistry(Arrays.asList(registered));
+
+        // when
+        registry.id(new StockedItem(10, new AnyDay()));
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class MappedInventoryDatabaseTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void runOrdersTheSameAsTheDatabaseItWasCopiedFrom() throws IOException {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(500, 23);
+        final LocalDate today = LocalDate.of(2016, 7, 1);
+        final Path file = folder.newFile().toPath();
+        MappedInventoryDatabase.create(file, catalog.items, catalog.database()).close();
+        final MappedInventoryDatabase mapped = MappedInventoryDatabase.open(file);
+        final Map<Item, Item> original = new IdentityHashMap<>();
+        final List<Item> stored = mapped.stockItems();
+        for (int row = 0; row < stored.size(); row++) {
+            original.put(stored.get(row), catalog.items.get(row));
+        }
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final MarketingInfo mappedMi = new MarketingTemplate() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                return mi.onSale(original.get(item), when);
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                return mi.season(when);
+            }
+        };
+
+        // when
+        final List<Order> expected = new AceInventoryManager(catalog.database(), mi).getOrders(today);
+        final List<Order> actual = new ArrayList<>();
+        for (final Order order : new AceInventoryManager(mapped, mappedMi).getOrders(today)) {
+            actual.add(new Order(original.get(order.item), order.quantity, order.warehouse));
+        }
+
+        // then
+        assertTrue(expected.size() > 50);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void requiredOnHandChangesPersistInPlace() throws IOException {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(50, 29);
+        final Path file = folder.newFile().toPath();
+        final MappedInventoryDatabase mapped = MappedInventoryDatabase.create(file, catalog.items, catalog.database());
+        final long size = file.toFile().length();
+        final List<Item> before = mapped.stockItems();
+        final Item item = before.get(7);
+
+        // when
+        mapped.setRequiredOnHand(item, Warehouse.Zzyzx, 44);
+        final List<Item> changed = mapped.stockItems();
+        mapped.close();
+        final MappedInventoryDatabase reopened = MappedInventoryDatabase.open(file);
+        final Item after = reopened.stockItems().get(7);
+
+        // then
+        assertNotSame(item, changed.get(7));
+        assertSame(before.get(8), changed.get(8));
+        assertEquals(size, file.toFile().length());
+        assertTrue(after.stocks(Warehouse.Zzyzx));
+        assertEquals(44, wantOnHand(after, Warehouse.Zzyzx));
+        assertEquals(catalog.onHand.get(Warehouse.Zzyzx, catalog.items.get(7)).intValue(), reopened.onHand(after, Warehouse.Zzyzx));
+    }
+
+    @Test
+    public void createdItemsReorderByTheGivenSettings() throws IOException {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(20, 37);
+        final RuleSettings rules = new RuleSettings(0.5, 30, 3, 1.5);
+
+        // when
+        final MappedInventoryDatabase mapped = MappedInventoryDatabase.create(folder.newFile().toPath(), catalog.items,
+                catalog.database(), rules);
+
+        // then
+        for (final Item item : mapped.stockItems()) {
+            assertEquals(rules, item instanceof SeasonalItem ? ((SeasonalItem) item).rules() : ((StockedItem) item).rules());
+        }
+    }
+
+    @Test
+    public void failedCreateLeavesTheExistingFile() throws IOException {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(30, 41);
+        final Path file = folder.newFile().toPath();
+        MappedInventoryDatabase.create(file, catalog.items, catalog.database()).close();
+        final byte[] before = Files.readAllBytes(file);
+        final List<Item> unstorable = new ArrayList<>(catalog.items);
+        unstorable.add(new StockedItem(5, today -> true));
+
+        // when
+        IllegalArgumentException error = null;
+        try {
+            MappedInventoryDatabase.create(file, unstorable, catalog.database());
+        } catch (final IllegalArgumentException e) {
+            error = e;
+        }
+
+        // then
+        assertTrue(error != null);
+        assertArrayEquals(before, Files.readAllBytes(file));
+        assertEquals(1, folder.getRoot().list().length);
+        assertEquals(catalog.items.size(), MappedInventoryDatabase.open(file).stockItems().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectItemsFromElsewhere() throws IOException {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(10, 31);
+        final MappedInventoryDatabase mapped = MappedInventoryDatabase.create(folder.newFile().toPath(), catalog.items, catalog.database());
+
+        // when
+        mapped.onHand(catalog.items.get(0), Warehouse.home());
+    }
+
+    private static int wantOnHand(final Item item, final Warehouse warehouse) {
+        return item instanceof SeasonalItem ? ((SeasonalItem) item).wantOnHand(warehouse) : ((StockedItem) item).wantOnHand(warehouse);
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class OrderBatchTest {
+
+    private final Item first = new StockedItem(10, new AnyDay());
+    private final Item second = new StockedItem(20, new AnyDay());
+    private final List<Order> orders = Arrays.asList(
+            new Order(first, 5, Warehouse.Ashford),
+            new Order(second, 7, Warehouse.Zzyzx),
+            new Order(first, 3, Warehouse.Zzyzx));
+
+    @Test
+    public void keepOrdersInColumns() {
+        // when
+        final OrderBatch batch = OrderBatch.of(orders);
+
+        // then
+        assertEquals(3, batch.size());
+        assertEquals(2, batch.items().size());
+        assertEquals(batch.itemId(0), batch.itemId(2));
+        assertSame(second, batch.item(1));
+        assertEquals(7, batch.quantity(1));
+        assertEquals(Warehouse.Zzyzx, batch.warehouse(2));
+        assertEquals(orders, batch.toList());
+        assertEquals(orders, batch.asList());
+    }
+
+    @Test
+    public void iterateInOrder() {
+        // given
+        final OrderBatch batch = OrderBatch.of(orders);
+        final List<Order> actual = new ArrayList<>();
+
+        // when
+        for (final Order order : batch) {
+            actual.add(order);
+        }
+
+        // then
+        assertEquals(orders, actual);
+    }
+
+    @Test
+    public void sliceByWarehouse() {
+        // given
+        final OrderBatch batch = OrderBatch.of(orders);
+
+        // when
+        final OrderBatch zzyzx = batch.forWarehouse(Warehouse.Zzyzx);
+
+        // then
+        assertEquals(Arrays.asList(orders.get(1), orders.get(2)), zzyzx.toList());
+        assertSame(batch.items(), zzyzx.items());
+        assertEquals(0, batch.forWarehouse(Warehouse.Peculiar).size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectReadsPastTheEnd() {
+        // given
+        final OrderBatch batch = OrderBatch.of(orders);
+
+        // when
+        batch.quantity(3);
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class ReorderRulesTest {
+
+    @Test
+    public void batchAgreesWithSingleEvaluation() {
+        assertBatchAgreesWithSingleEvaluation(RuleSettings.DEFAULT);
+    }
+
+    @Test
+    public void batchAgreesWithSingleEvaluationUnderOtherSettings() {
+        assertBatchAgreesWithSingleEvaluation(new RuleSettings(0.5, 30, 3, 1.5));
+    }
+
+    @Test
+    public void batchSkipsRowsWithoutABunchSize() {
+        // given
+        final int[] onHand = { 0, 5, 0 };
+        final int[] onOrder = { 0, 0, 0 };
+        final int[] target = { ReorderRules.NOT_STOCKED, 30, 20 };
+        final int[] bunch = { 0, 4, 0 };
+        final byte[] flags = { 0, 0, ReorderRules.OFF_SCHEDULE };
+        final int[] actual = new int[3];
+
+        // when
+        ReorderRules.evaluate(0, 3, onHand, onOrder, target, bunch, flags, RuleSettings.DEFAULT, actual);
+
+        // then
+        assertArrayEquals(new int[] { 0, 24, 0 }, actual);
+    }
+
+    private static void assertBatchAgreesWithSingleEvaluation(final RuleSettings settings) {
+        // given
+        final int count = 100000;
+        final Random random = new Random(7);
+        final int[] onHand = new int[count];
+        final int[] onOrder = new int[count];
+        final int[] target = new int[count];
+        final int[] bunch = new int[count];
+        final byte[] flags = new byte[count];
+        for (int i = 0; i < count; i++) {
+            onHand[i] = random.nextInt(120);
+            onOrder[i] = random.nextInt(3) == 0 ? random.nextInt(30) : 0;
+            target[i] = random.nextInt(10) == 0 ? ReorderRules.NOT_STOCKED : random.nextInt(100);
+            bunch[i] = 1 + random.nextInt(8);
+            flags[i] = (byte) random.nextInt(16);
+        }
+        final int[] expected = new int[count];
+        for (int i = 0; i < count; i++) {
+            expected[i] = ReorderRules.quantity(onHand[i], onOrder[i], target[i], bunch[i], flags[i], settings);
+        }
+        final int[] actual = new int[count + 2];
+
+        // when
+        ReorderRules.evaluate(1, count + 1, shift(onHand), shift(onOrder), shift(target), shift(bunch), shift(flags), settings, actual);
+
+        // then
+        assertArrayEquals(expected, Arrays.copyOfRange(actual, 1, count + 1));
+    }
+
+    /**
+     * one row later, between rows that do not stock anything
+     */
+    private static int[] shift(final int[] rows) {
+        final int[] shifted = new int[rows.length + 2];
+        System.arraycopy(rows, 0, shifted, 1, rows.length);
+        shifted[0] = shifted[rows.length + 1] = ReorderRules.NOT_STOCKED;
+        return shifted;
+    }
+
+    private static byte[] shift(final byte[] rows) {
+        final byte[] shifted = new byte[rows.length + 2];
+        System.arraycopy(rows, 0, shifted, 1, rows.length);
+        return shifted;
+    }
+
+    @Test
+    public void seasonalItemIgnoresSaleOutOfSeason() {
+        // given
+        final int onHand = 10;
+        final int target = 30;
+
+        // when
+        final int stocked = ReorderRules.quantity(onHand, 0, target, 1, ReorderRules.ON_SALE);
+        final int seasonal = ReorderRules.quantity(onHand, 0, target, 1, ReorderRules.ON_SALE | ReorderRules.SEASONAL);
+
+        // then
+        assertEquals(40, stocked);
+        assertEquals(20, seasonal);
+    }
+
+    @Test
+    public void doNotOrderOffSchedule() {
+        assertEquals(0, ReorderRules.quantity(0, 0, 30, 1, ReorderRules.OFF_SCHEDULE));
+    }
+
+    @Test
+    public void compiledPlanAgreesWithRules() {
+        // given
+        final Random random = new Random(20);
+        final int warehouses = Warehouse.values().length;
+        for (int n = 0; n < 20000; n++) {
+            final int[] wantOnHand = new int[warehouses];
+            for (int w = 0; w < warehouses; w++) {
+                final int kind = random.nextInt(12);
+                wantOnHand[w] = kind == 0 ? ReorderRules.NOT_STOCKED : kind == 1 ? 0 : kind == 2 ? -random.nextInt(30) : random.nextInt(100);
+            }
+            final int bunch = 1 + random.nextInt(8);
+            final boolean seasonal = random.nextBoolean();
+
+            // when
+            final RulePlan plan = RulePlan.compile(wantOnHand, bunch, seasonal, RuleSettings.DEFAULT);
+
+            // then
+            for (int i = 0; i < 20; i++) {
+                final Warehouse warehouse = Warehouse.values()[random.nextInt(warehouses)];
+                final int onHand = random.nextInt(120);
+                final int onOrder = random.nextInt(3) == 0 ? random.nextInt(30) : 0;
+                final boolean onSale = random.nextBoolean();
+                final boolean inSeason = random.nextBoolean();
+                final int flags = (onSale ? ReorderRules.ON_SALE : 0) | (seasonal ? ReorderRules.SEASONAL : 0)
+                        | (seasonal && inSeason ? ReorderRules.IN_SEASON : 0);
+                final int target = wantOnHand[warehouse.ordinal()];
+                assertEquals(ReorderRules.quantity(onHand, onOrder, target, bunch, flags),
+                        plan.quantity(warehouse, onHand, onOrder, onSale, inSeason));
+                if (target > 0)
+                    assertEquals(ReorderRules.raisedTarget(target), plan.raisedTarget(warehouse));
+            }
+        }
+    }
+
+    @Test
+    public void itemsOrderBySettings() {
+        // given
+        final RuleSettings rules = new RuleSettings(0.5, 30, 3, 1.5);
+        final Map<Warehouse, Integer> wantOnHand = Collections.singletonMap(Warehouse.home(), 40);
+        final Item stocked = new StockedItem(wantOnHand, new AnyDay(), 1, rules);
+        final Item seasonal = new SeasonalItem(wantOnHand, Season.Summer, new AnyDay(), 1, rules);
+        final Map<String, Integer> raised = new HashMap<>();
+        final InventoryDatabase db = new DatabaseTemplate() {
+            @Override
+            public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+                raised.put(item == stocked ? "stocked" : "seasonal", newAmount);
+            }
+        };
+        final MarketingInfo mi = new MarketingTemplate() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                return item == stocked;
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                return Season.Summer;
+            }
+        };
+        final LocalDate today = LocalDate.of(2016, 7, 4);
+        final Warehouse home = Warehouse.home();
+
+        // when
+        final int halfFull = stocked.orderQuantity(today, 36, 0, db, mi, home);
+        final int onSale = stocked.orderQuantity(today, 20, 0, db, mi, home);
+        final int inSeason = seasonal.orderQuantity(today, 60, 0, db, mi, home);
+        final int ranOut = seasonal.orderQuantity(today, 0, 0, db, mi, home);
+
+        // then
+        assertEquals(0, halfFull);
+        assertEquals(50, onSale);
+        assertEquals(60, inSeason);
+        assertEquals(120, ranOut);
+        assertEquals(Integer.valueOf(60), raised.get("seasonal"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void seasonFactorBelowOneIsRejected() {
+        new RuleSettings(0.8, 20, 0, 1.1);
+    }
+
+}
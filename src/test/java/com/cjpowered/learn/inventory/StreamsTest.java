@@ -0,0 +1,47 @@
+package com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class StreamsTest {
+
+    @Test
+    public void actionRunsOnceAfterTheLastElement() {
+        // given
+        final List<String> events = new ArrayList<>();
+        final Stream<String> source = Stream.of("a", "b").peek(events::add).onClose(() -> events.add("source closed"));
+
+        // when
+        final List<String> elements;
+        try (Stream<String> stream = Streams.onExhaustion(source, () -> events.add("done"))) {
+            elements = stream.collect(Collectors.toList());
+        }
+
+        // then
+        assertEquals(Arrays.asList("a", "b"), elements);
+        assertEquals(Arrays.asList("a", "b", "done", "source closed"), events);
+    }
+
+    @Test
+    public void closingAPartlyConsumedStreamRunsTheAction() {
+        // given
+        final List<String> events = new ArrayList<>();
+        final Stream<String> source = Stream.of("a", "b", "c").peek(events::add).onClose(() -> events.add("source closed"));
+
+        // when
+        try (Stream<String> stream = Streams.onExhaustion(source, () -> events.add("done"))) {
+            stream.findFirst();
+        }
+
+        // then
+        assertEquals(Arrays.asList("a", "source closed", "done"), events);
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class VersionedInventoryDatabaseTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void runOrdersTheSameAsTheDatabaseItWasCopiedFrom() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(1100, 31);
+        final LocalDate today = LocalDate.of(2016, 7, 1);
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final VersionedInventoryDatabase versioned = new VersionedInventoryDatabase(catalog.database());
+
+        // when
+        final List<Order> expected = new AceInventoryManager(catalog.database(), mi).getOrders(today);
+        final List<Order> actual = new AceInventoryManager(versioned, mi).getOrders(today);
+
+        // then
+        assertTrue(expected.size() > 100);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void snapshotIgnoresLaterWrites() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(200, 37);
+        final VersionedInventoryDatabase versioned = new VersionedInventoryDatabase(catalog.database());
+        final Item item = catalog.items.get(150);
+        final int onHand = versioned.onHand(item, Warehouse.Ashford);
+        final int onOrder = versioned.onOrder(item, Warehouse.Ashford);
+        final Item other = catalog.items.get(3);
+        versioned.set(other, Warehouse.Peculiar, 7, 1);
+        final InventoryDatabase snapshot = versioned.snapshot();
+
+        // when
+        versioned.adjust(item, Warehouse.Ashford, 12, -5);
+        versioned.set(other, Warehouse.Peculiar, 99, 1);
+
+        // then
+        assertEquals(onHand, snapshot.onHand(item, Warehouse.Ashford));
+        assertEquals(onOrder, snapshot.stockSnapshot(catalog.items).onOrder(item, Warehouse.Ashford));
+        assertEquals(onHand + 12, versioned.onHand(item, Warehouse.Ashford));
+        assertEquals(onOrder - 5, versioned.snapshot().onOrder(item, Warehouse.Ashford));
+        assertEquals(99, versioned.onHand(other, Warehouse.Peculiar));
+        assertEquals(7, snapshot.onHand(other, Warehouse.Peculiar));
+    }
+
+    @Test
+    public void snapshotNeverSeesHalfAWrite() throws InterruptedException {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(300, 41);
+        final VersionedInventoryDatabase versioned = new VersionedInventoryDatabase(catalog.database());
+        final Item first = catalog.items.get(2);
+        final Item second = catalog.items.get(290);
+        versioned.set(first, Warehouse.Zzyzx, 0, 0);
+        versioned.set(second, Warehouse.Zzyzx, 0, 0);
+        final AtomicBoolean stop = new AtomicBoolean();
+        final Thread writer = new Thread(() -> {
+            while (!stop.get()) {
+                versioned.adjust(first, Warehouse.Zzyzx, 1, 0);
+                versioned.adjust(second, Warehouse.Zzyzx, 1, 0);
+            }
+        });
+
+        // when
+        writer.start();
+        boolean consistent = true;
+        try {
+            for (int read = 0; read < 200_000; read++) {
+                final InventoryDatabase snapshot = versioned.snapshot();
+                final int later = snapshot.onHand(second, Warehouse.Zzyzx);
+                final int earlier = snapshot.onHand(first, Warehouse.Zzyzx);
+                consistent &= earlier == later || earlier == later + 1;
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+
+        // then
+        assertTrue(consistent);
+    }
+
+    @Test
+    public void itemsTheCatalogRebuildsKeepTheirCounts() throws IOException {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(100, 47);
+        final MappedInventoryDatabase mapped = MappedInventoryDatabase.create(folder.newFile().toPath(), catalog.items,
+                catalog.database());
+        final VersionedInventoryDatabase versioned = new VersionedInventoryDatabase(mapped);
+        final Item item = versioned.stockItems().get(5);
+        final Item other = versioned.stockItems().get(6);
+        versioned.set(item, Warehouse.Zzyzx, 3, 4);
+        final InventoryDatabase before = versioned.snapshot();
+
+        // when
+        versioned.setRequiredOnHand(item, Warehouse.Zzyzx, 44);
+        final InventoryDatabase after = versioned.snapshot();
+        final Item rebuilt = after.stockItems().get(5);
+        versioned.adjust(rebuilt, Warehouse.Zzyzx, 1, 0);
+
+        // then
+        assertNotSame(item, rebuilt);
+        assertSame(other, after.stockItems().get(6));
+        assertSame(item, before.stockItems().get(5));
+        assertEquals(3, before.onHand(item, Warehouse.Zzyzx));
+        assertEquals(3, after.onHand(rebuilt, Warehouse.Zzyzx));
+        assertEquals(4, after.onOrder(rebuilt, Warehouse.Zzyzx));
+        assertEquals(4, versioned.onHand(rebuilt, Warehouse.Zzyzx));
+        assertEquals(mapped.onHand(other, Warehouse.Ashford), after.onHand(other, Warehouse.Ashford));
+    }
+
+    @Test
+    public void itemsAddedToTheCatalogStartFromItsCounts() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(50, 53);
+        final List<Item> listed = new ArrayList<>(catalog.items.subList(0, 40));
+        final InventoryDatabase source = new FakeDatabase(catalog.onHand, catalog.onOrder) {
+            @Override
+            public List<Item> stockItems() {
+                return new ArrayList<>(listed);
+            }
+        };
+        final VersionedInventoryDatabase versioned = new VersionedInventoryDatabase(source);
+        final Item kept = catalog.items.get(10);
+        versioned.set(kept, Warehouse.Peculiar, 9, 8);
+
+        // when
+        listed.remove(0);
+        listed.add(catalog.items.get(45));
+        final InventoryDatabase snapshot = versioned.snapshot();
+
+        // then
+        assertEquals(listed, snapshot.stockItems());
+        assertEquals(9, snapshot.onHand(kept, Warehouse.Peculiar));
+        assertEquals(8, snapshot.onOrder(kept, Warehouse.Peculiar));
+        assertEquals(source.onHand(catalog.items.get(45), Warehouse.Peculiar), snapshot.onHand(catalog.items.get(45), Warehouse.Peculiar));
+    }
+
+    @Test
+    public void itemListedInPlaceOfAnotherStartsFromTheCatalog() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(50, 59);
+        final List<Item> listed = new ArrayList<>(catalog.items.subList(0, 40));
+        final InventoryDatabase source = new FakeDatabase(catalog.onHand, catalog.onOrder) {
+            @Override
+            public List<Item> stockItems() {
+                return new ArrayList<>(listed);
+            }
+        };
+        final VersionedInventoryDatabase versioned = new VersionedInventoryDatabase(source);
+        final Item dropped = catalog.items.get(10);
+        final Item replacement = catalog.items.get(45);
+        versioned.set(dropped, Warehouse.Peculiar, 9999, 8888);
+
+        // when
+        listed.set(10, replacement);
+        final InventoryDatabase snapshot = versioned.snapshot();
+
+        // then
+        assertEquals(replacement, snapshot.stockItems().get(10));
+        assertEquals(source.onHand(replacement, Warehouse.Peculiar), snapshot.onHand(replacement, Warehouse.Peculiar));
+        assertEquals(source.onOrder(replacement, Warehouse.Peculiar), snapshot.onOrder(replacement, Warehouse.Peculiar));
+    }
+
+    @Test
+    public void runIgnoresStockRecordedWhileItRuns() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(400, 43);
+        final LocalDate today = LocalDate.of(2016, 7, 1);
+        final VersionedInventoryDatabase versioned = new VersionedInventoryDatabase(catalog.database());
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final AtomicBoolean shipped = new AtomicBoolean();
+        final MarketingInfo shipping = new MarketingTemplate() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                return mi.onSale(item, when);
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                for (final Item item : catalog.items) {
+                    for (final Warehouse warehouse : Warehouse.values()) {
+                        versioned.adjust(item, warehouse, 1000, 0);
+                    }
+                }
+                shipped.set(true);
+                return mi.season(when);
+            }
+        };
+        final Executor sameThread = Runnable::run;
+
+        // when
+        final List<Order> expected = new AceInventoryManager(catalog.database(), mi).getOrders(today);
+        final List<Order> actual = new AceInventoryManager(versioned, shipping, sameThread, 1).getOrders(today);
+
+        // then
+        assertTrue(shipped.get());
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.cjpowered.learn.inventory.partition;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+import com.cjpowered.learn.inventory.CatalogFixture;
+import com.cjpowered.learn.marketing.Season;
+
+/*
+ * Worker process for the partitioning tests: serves a CatalogFixture on a
+ * free loopback port, prints the port, and exits when its input closes.
+ * With a third argument "die", it instead answers the first request with
+ * half a response and then halts, like a worker crashing mid-run.
+ */
+public class FixtureShardServer {
+
+    public static void main(final String[] args) throws IOException {
+        final CatalogFixture catalog = new CatalogFixture(Integer.parseInt(args[0]), Long.parseLong(args[1]));
+        final ShardWorker worker = new ShardWorker(catalog.database(), catalog.marketing(Season.Summer));
+        if (args.length > 2 && args[2].equals("die")) {
+            dieMidResponse(worker);
+            return;
+        }
+        try (ShardServer server = new ShardServer(worker, 0)) {
+            System.out.println(server.port());
+            System.out.flush();
+            while (System.in.read() != -1) {
+            }
+        }
+    }
+
+    private static void dieMidResponse(final ShardWorker worker) throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println(socket.getLocalPort());
+            System.out.flush();
+            final Socket connection = socket.accept();
+            final ShardResult result = worker.run(Wire.readRequest(new DataInputStream(connection.getInputStream())));
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            Wire.writeResult(new DataOutputStream(response), result);
+            final byte[] bytes = response.toByteArray();
+            final OutputStream out = connection.getOutputStream();
+            out.write(Arrays.copyOf(bytes, bytes.length / 2));
+            out.flush();
+            Runtime.getRuntime().halt(3);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.cjpowered.learn.inventory.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.CatalogFixture;
+import com.cjpowered.learn.inventory.FakeDatabase;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemColumns;
+import com.cjpowered.learn.inventory.ItemRegistry;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.RequiredOnHand;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class PartitionedInventoryManagerTest {
+
+    private static final int SIZE = 400;
+    private static final long SEED = 19;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final LocalDate FIRST = LocalDate.of(2016, 6, 1);
+    private static final LocalDate LATER = LocalDate.of(2016, 6, 17);
+
+    private final List<Process> processes = new ArrayList<>();
+    private final List<ShardServer> servers = new ArrayList<>();
+
+    @After
+    public void stopWorkers() throws Exception {
+        for (final ShardServer server : servers) {
+            server.close();
+        }
+        for (final Process process : processes) {
+            process.destroy();
+            process.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void workersInThisProcessOrderAsAceDoes() throws Exception {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(SIZE, SEED);
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final List<ShardTransport> workers = Arrays.asList(serve(), serve(), serve());
+
+        for (final LocalDate today : Arrays.asList(FIRST, LATER)) {
+            // when
+            final List<Order> actual = new PartitionedInventoryManager(catalog.database(), mi, workers, 7).getOrders(today);
+
+            // then
+            final List<Order> expected = new AceInventoryManager(catalog.database(), mi).getOrders(today);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void changesAreWrittenOnceByTheCoordinator() throws Exception {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(SIZE, SEED);
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final Map<String, Integer> aceWrites = new HashMap<>();
+        new AceInventoryManager(catalog.database(aceWrites), mi).getOrders(FIRST);
+        final AtomicInteger batches = new AtomicInteger();
+        final Map<String, Integer> writes = new HashMap<>();
+        final InventoryDatabase db = new FakeDatabase(catalog.onHand, catalog.onOrder, writes) {
+            @Override
+            public List<Item> stockItems() {
+                return new ArrayList<>(catalog.items);
+            }
+
+            @Override
+            public void setRequiredOnHand(final Collection<RequiredOnHand> changes) {
+                batches.incrementAndGet();
+                super.setRequiredOnHand(changes);
+            }
+        };
+
+        // when
+        new PartitionedInventoryManager(db, mi, Arrays.asList(serve()), 4).getOrders(FIRST);
+
+        // then
+        assertTrue(aceWrites.get(FakeDatabase.ON_HAND_METHOD) > 0);
+        assertEquals(aceWrites.get(FakeDatabase.ON_HAND_METHOD), writes.get(FakeDatabase.ON_HAND_METHOD));
+        assertEquals(1, batches.get());
+    }
+
+    @Test
+    public void workersInOtherProcessesOrderAsAceDoes() throws Exception {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(SIZE, SEED);
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final List<ShardTransport> workers = Arrays.asList(launch(), launch());
+
+        // when
+        final List<Order> actual = new PartitionedInventoryManager(catalog.database(), mi, workers, 4).getOrders(FIRST);
+
+        // then
+        assertEquals(new AceInventoryManager(catalog.database(), mi).getOrders(FIRST), actual);
+    }
+
+    @Test
+    public void shardOfAWorkerDyingMidResponseGoesToAnother() throws Exception {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(SIZE, SEED);
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final List<ShardTransport> workers = Arrays.asList(launch("die"), launch());
+        final Process dying = processes.get(0);
+
+        // when
+        final List<Order> actual = new PartitionedInventoryManager(catalog.database(), mi, workers, 4).getOrders(FIRST);
+
+        // then
+        assertTrue(dying.waitFor(10, TimeUnit.SECONDS));
+        assertEquals(3, dying.exitValue());
+        assertEquals(new AceInventoryManager(catalog.database(), mi).getOrders(FIRST), actual);
+    }
+
+    @Test
+    public void coordinatorDecidesShardsNoWorkerCanTake() throws Exception {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(SIZE, SEED);
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final ShardTransport failing = request -> {
+            throw new IOException("worker error");
+        };
+        final List<ShardTransport> workers = Arrays.asList(closedPort(), failing);
+
+        // when
+        final List<Order> actual = new PartitionedInventoryManager(catalog.database(), mi, workers, 3).getOrders(LATER);
+
+        // then
+        assertEquals(new AceInventoryManager(catalog.database(), mi).getOrders(LATER), actual);
+    }
+
+    @Test
+    public void workerErrorsReachTheCoordinator() throws Exception {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(SIZE, SEED);
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final ShardServer server = new ShardServer(new ShardWorker(catalog.database(), null), 0);
+        servers.add(server);
+        final ShardTransport transport = new SocketShardTransport(new InetSocketAddress("localhost", server.port()), TIMEOUT);
+
+        // when
+        IOException error = null;
+        try {
+            transport.run(ShardRequest.of(FIRST, 0, 2, catalog.items));
+        } catch (final IOException e) {
+            error = e;
+        }
+
+        // then
+        assertTrue(error != null);
+        assertEquals(new AceInventoryManager(catalog.database(), mi).getOrders(FIRST),
+                new PartitionedInventoryManager(catalog.database(), mi, Arrays.asList(transport), 2).getOrders(FIRST));
+    }
+
+    @Test
+    public void workersReadingAnotherCatalogRefuseTheShard() throws Exception {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(SIZE, SEED);
+        final CatalogFixture other = new CatalogFixture(SIZE, SEED + 1);
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final ShardWorker stale = new ShardWorker(other.database(), other.marketing(Season.Summer));
+
+        // when
+        IllegalStateException error = null;
+        try {
+            stale.run(ShardRequest.of(FIRST, 0, 2, catalog.items));
+        } catch (final IllegalStateException e) {
+            error = e;
+        }
+        final List<Order> actual = new PartitionedInventoryManager(catalog.database(), mi, Arrays.asList(serve(other)), 3).getOrders(FIRST);
+
+        // then
+        assertTrue(error != null);
+        assertEquals(new AceInventoryManager(catalog.database(), mi).getOrders(FIRST), actual);
+    }
+
+    @Test
+    public void workerWithAStaleTargetIsPassedOver() throws Exception {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(SIZE, SEED);
+        final MarketingInfo mi = catalog.marketing(Season.Summer);
+        final List<Item> stale = new ArrayList<>(catalog.items);
+        for (int key = 0; key < stale.size(); key++) {
+            if (stale.get(key).getClass() == StockedItem.class) {
+                stale.set(key, raised(stale.get(key)));
+                break;
+            }
+        }
+        final ShardWorker inProcess = new ShardWorker(new FakeDatabase(catalog.onHand, catalog.onOrder) {
+            @Override
+            public List<Item> stockItems() {
+                return new ArrayList<>(stale);
+            }
+        }, mi);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // when
+        final List<Order> passedOver;
+        final List<Order> decidedHere;
+        try {
+            passedOver = new PartitionedInventoryManager(catalog.database(), mi, Arrays.asList(inProcess, serve()), 3, executor)
+                    .getOrders(FIRST);
+            decidedHere = new PartitionedInventoryManager(catalog.database(), mi, Arrays.asList(inProcess), 3, executor)
+                    .getOrders(FIRST);
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        final List<Order> expected = new AceInventoryManager(catalog.database(), mi).getOrders(FIRST);
+        assertEquals(expected, passedOver);
+        assertEquals(expected, decidedHere);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shardsMustBePositive() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(1, SEED);
+
+        // when
+        new PartitionedInventoryManager(catalog.database(), catalog.marketing(Season.Summer), new ArrayList<>(), 0);
+    }
+
+    /**
+     * the same stocked item with a target one higher in each warehouse
+     */
+    private static Item raised(final Item item) {
+        final ItemColumns columns = new ItemColumns(new ItemRegistry(Collections.singletonList(item)));
+        final Map<Warehouse, Integer> wantOnHand = new EnumMap<>(Warehouse.class);
+        for (final Warehouse warehouse : Warehouse.values()) {
+            if (item.stocks(warehouse))
+                wantOnHand.put(warehouse, columns.target(0, warehouse) + 1);
+        }
+        return new StockedItem(wantOnHand, item.schedule(), columns.bunch(0), columns.settings(0));
+    }
+
+    private ShardTransport serve() throws IOException {
+        return serve(new CatalogFixture(SIZE, SEED));
+    }
+
+    private ShardTransport serve(final CatalogFixture catalog) throws IOException {
+        final ShardServer server = new ShardServer(new ShardWorker(catalog.database(), catalog.marketing(Season.Summer)), 0);
+        servers.add(server);
+        return new SocketShardTransport(new InetSocketAddress("localhost", server.port()), TIMEOUT);
+    }
+
+    private ShardTransport launch(final String... mode) throws IOException {
+        final List<String> command = new ArrayList<>(Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                FixtureShardServer.class.getName(), String.valueOf(SIZE), String.valueOf(SEED)));
+        command.addAll(Arrays.asList(mode));
+        final Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        processes.add(process);
+        final String port = new BufferedReader(new InputStreamReader(process.getInputStream())).readLine();
+        return new SocketShardTransport(new InetSocketAddress("localhost", Integer.parseInt(port)), TIMEOUT);
+    }
+
+    private static ShardTransport closedPort() throws IOException {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        return new SocketShardTransport(new InetSocketAddress("localhost", port), TIMEOUT);
+    }
+
+}
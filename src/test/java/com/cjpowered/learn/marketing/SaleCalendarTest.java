@@ -0,0 +1,131 @@
+package com.cjpowered.learn.marketing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.AnyDay;
+import com.cjpowered.learn.inventory.CatalogFixture;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+
+public class SaleCalendarTest {
+
+    private static final LocalDate START = LocalDate.of(2016, 1, 1);
+
+    @Test
+    public void lookupsAgreeWithScanningEveryWindow() {
+        // given
+        final Random random = new Random(23);
+        final List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add(new StockedItem(10, new AnyDay()));
+        }
+        final List<SaleCalendar.Window> windows = randomWindows(items, random);
+        final SaleCalendar calendar = new SaleCalendar(windows);
+
+        for (int d = -5; d < 400; d += 3) {
+            final LocalDate day = START.plusDays(d);
+            // when
+            final Set<Item> onSale = calendar.itemsOnSale(day);
+
+            // then
+            final Set<Item> expected = new HashSet<>();
+            for (final Item item : items) {
+                final boolean scanned = scan(windows, item, day);
+                assertEquals(scanned, calendar.onSale(item, day));
+                if (scanned)
+                    expected.add(item);
+            }
+            assertEquals(expected, onSale);
+        }
+    }
+
+    @Test
+    public void saleDaysListsEachDayInRange() {
+        // given
+        final Item item = new StockedItem(10, new AnyDay());
+        final SaleCalendar calendar = new SaleCalendar(Arrays.asList(
+                new SaleCalendar.Window(item, LocalDate.of(2016, 3, 1), LocalDate.of(2016, 3, 5)),
+                new SaleCalendar.Window(item, LocalDate.of(2016, 3, 4), LocalDate.of(2016, 3, 8)),
+                new SaleCalendar.Window(item, LocalDate.of(2016, 3, 20), LocalDate.of(2016, 4, 2))));
+
+        // when
+        final BitSet days = calendar.saleDays(item, LocalDate.of(2016, 3, 3), LocalDate.of(2016, 3, 25));
+        final BitSet none = calendar.saleDays(new StockedItem(10, new AnyDay()), START, START.plusDays(10));
+
+        // then
+        final BitSet expected = new BitSet();
+        expected.set(0, 6);
+        expected.set(17, 23);
+        assertEquals(expected, days);
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    public void managerOrdersAsWithPerCallSaleQuestions() {
+        // given
+        final CatalogFixture catalog = new CatalogFixture(400, 24);
+        final List<SaleCalendar.Window> windows = randomWindows(catalog.items, new Random(24));
+        final MarketingInfo seasons = catalog.marketing(Season.Summer);
+        final MarketingInfo scanning = new MarketingInfo() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                return scan(windows, item, when);
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                return Season.Summer;
+            }
+        };
+        final MarketingInfo indexed = new SaleCalendarMarketingInfo(new SaleCalendar(windows), seasons);
+
+        for (final LocalDate today : Arrays.asList(START.plusDays(40), START.plusDays(152), START.plusDays(300))) {
+            // when
+            final List<?> orders = new AceInventoryManager(catalog.database(), indexed).getOrders(today);
+
+            // then
+            assertFalse(orders.isEmpty());
+            assertEquals(new AceInventoryManager(catalog.database(), scanning).getOrders(today), orders);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void windowMustNotEndBeforeItStarts() {
+        new SaleCalendar.Window(new StockedItem(10, new AnyDay()), START, START.minusDays(1));
+    }
+
+    private static List<SaleCalendar.Window> randomWindows(final List<Item> items, final Random random) {
+        final List<SaleCalendar.Window> windows = new ArrayList<>();
+        for (final Item item : items) {
+            final int count = random.nextInt(6);
+            for (int w = 0; w < count; w++) {
+                final LocalDate first = START.plusDays(random.nextInt(366));
+                windows.add(new SaleCalendar.Window(item, first, first.plusDays(random.nextInt(random.nextBoolean() ? 5 : 60))));
+            }
+        }
+        return windows;
+    }
+
+    private static boolean scan(final List<SaleCalendar.Window> windows, final Item item, final LocalDate day) {
+        for (final SaleCalendar.Window window : windows) {
+            if (window.item.equals(item) && !day.isBefore(window.first) && !day.isAfter(window.last))
+                return true;
+        }
+        return false;
+    }
+
+}
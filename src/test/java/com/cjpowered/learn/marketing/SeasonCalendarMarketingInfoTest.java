@@ -0,0 +1,158 @@
+package com.cjpowered.learn.marketing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.AnyDay;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.StockedItem;
+
+public class SeasonCalendarMarketingInfoTest {
+
+    @Test
+    public void everyDayMatchesTheBoundariesAndEachYearIsFetchedOnce() {
+        // given
+        final List<Integer> fetched = new ArrayList<>();
+        final SeasonCalendarMarketingInfo calendar = new SeasonCalendarMarketingInfo(null, year -> {
+            fetched.add(year);
+            return quarters(year, 0);
+        });
+
+        // when
+        final List<Season> seasons = new ArrayList<>();
+        for (LocalDate day = LocalDate.of(2015, 12, 1); day.isBefore(LocalDate.of(2017, 2, 1)); day = day.plusDays(1)) {
+            seasons.add(calendar.season(day));
+        }
+
+        // then
+        int i = 0;
+        for (LocalDate day = LocalDate.of(2015, 12, 1); day.isBefore(LocalDate.of(2017, 2, 1)); day = day.plusDays(1)) {
+            assertEquals(day.toString(), quarters(day.getYear(), 0).floorEntry(day).getValue(), seasons.get(i++));
+        }
+        assertEquals(3, fetched.size());
+        assertEquals(Season.Spring, calendar.season(LocalDate.of(2016, 3, 21)));
+        assertEquals(Season.Winter, calendar.season(LocalDate.of(2016, 12, 31)));
+        assertEquals(3, fetched.size());
+    }
+
+    @Test
+    public void scanningAsksForEachDayOfAYearOnce() {
+        // given
+        final int[] calls = new int[1];
+        final MarketingInfo marketing = new MarketingInfo() {
+            @Override
+            public boolean onSale(final Item item, final LocalDate when) {
+                return true;
+            }
+
+            @Override
+            public Season season(final LocalDate when) {
+                calls[0]++;
+                return quarters(when.getYear(), 0).floorEntry(when).getValue();
+            }
+        };
+        final SeasonCalendarMarketingInfo calendar = new SeasonCalendarMarketingInfo(marketing);
+
+        // when
+        final Season summer = calendar.season(LocalDate.of(2016, 7, 4));
+        final Season fall = calendar.season(LocalDate.of(2016, 10, 1));
+        final boolean onSale = calendar.onSale(new StockedItem(1, new AnyDay()), LocalDate.of(2016, 7, 4));
+
+        // then
+        assertEquals(Season.Summer, summer);
+        assertEquals(Season.Fall, fall);
+        assertEquals(366, calls[0]);
+        assertTrue(onSale);
+    }
+
+    @Test
+    public void refreshPicksUpMovedBoundaries() {
+        // given
+        final int[] shift = new int[1];
+        final SeasonCalendarMarketingInfo calendar = new SeasonCalendarMarketingInfo(null, year -> quarters(year, shift[0]));
+        final LocalDate day = LocalDate.of(2016, 6, 10);
+        final LocalDate nextYear = LocalDate.of(2017, 6, 10);
+        calendar.season(day);
+
+        // when
+        shift[0] = 15;
+        final Season stale = calendar.season(day);
+        calendar.refresh(2016);
+        final Season refreshed = calendar.season(day);
+        final Season otherYear = calendar.season(nextYear);
+        shift[0] = 0;
+        calendar.refresh(2018);
+        final Season notRefreshed = calendar.season(nextYear);
+        calendar.refresh();
+        final Season reloaded = calendar.season(nextYear);
+
+        // then
+        assertEquals(Season.Summer, stale);
+        assertEquals(Season.Spring, refreshed);
+        assertEquals(Season.Spring, otherYear);
+        assertEquals(Season.Spring, notRefreshed);
+        assertEquals(Season.Summer, reloaded);
+    }
+
+    @Test
+    public void farApartYearsAreKeptSeparately() {
+        // given
+        final List<Integer> fetched = new ArrayList<>();
+        final SeasonCalendarMarketingInfo calendar = new SeasonCalendarMarketingInfo(null, year -> {
+            fetched.add(year);
+            return quarters(year, 0);
+        });
+
+        // when
+        final Season now = calendar.season(LocalDate.of(2016, 7, 4));
+        final Season last = calendar.season(LocalDate.of(9999, 12, 31));
+        final Season max = calendar.season(LocalDate.MAX);
+        final Season min = calendar.season(LocalDate.MIN);
+        final Season again = calendar.season(LocalDate.of(2016, 3, 1));
+
+        // then
+        assertEquals(Season.Summer, now);
+        assertEquals(Season.Winter, last);
+        assertEquals(Season.Winter, max);
+        assertEquals(Season.Winter, min);
+        assertEquals(Season.Spring, again);
+        assertEquals(4, fetched.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void yearMustStartInASeason() {
+        // given
+        final SeasonCalendarMarketingInfo calendar = new SeasonCalendarMarketingInfo(null, year -> {
+            final NavigableMap<LocalDate, Season> starts = quarters(year, 0);
+            starts.remove(LocalDate.of(year, 1, 1));
+            return starts;
+        });
+
+        // when
+        calendar.season(LocalDate.of(2016, 5, 5));
+    }
+
+    /**
+     * Winter from January 1, then spring, summer and fall from the 1st of
+     * March, June and September plus {@code shift} days, and winter again
+     * from December 1.
+     */
+    private static NavigableMap<LocalDate, Season> quarters(final int year, final int shift) {
+        final NavigableMap<LocalDate, Season> starts = new TreeMap<>();
+        starts.put(LocalDate.of(year, 1, 1), Season.Winter);
+        starts.put(LocalDate.of(year, 3, 1).plusDays(shift), Season.Spring);
+        starts.put(LocalDate.of(year, 6, 1).plusDays(shift), Season.Summer);
+        starts.put(LocalDate.of(year, 9, 1).plusDays(shift), Season.Fall);
+        starts.put(LocalDate.of(year, 12, 1), Season.Winter);
+        return starts;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.cjpowered.learn.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void quantilesAreBucketUpperBounds() {
+        // given
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+
+        // when
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // then
+        assertEquals(100, snapshot.count());
+        assertEquals(99 * 100 + 5000, snapshot.totalNanos());
+        assertEquals(127, snapshot.quantileNanos(0.5));
+        assertEquals(127, snapshot.quantileNanos(0.99));
+        assertEquals(8191, snapshot.maxNanos());
+    }
+
+    @Test
+    public void snapshotsSubtract() {
+        // given
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5000);
+        final LatencyHistogram.Snapshot before = histogram.snapshot();
+        histogram.record(100);
+
+        // when
+        final LatencyHistogram.Snapshot since = histogram.snapshot().since(before);
+
+        // then
+        assertEquals(1, since.count());
+        assertEquals(100, since.totalNanos());
+        assertEquals(127, since.maxNanos());
+    }
+
+}